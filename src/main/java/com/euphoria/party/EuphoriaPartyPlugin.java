@@ -14,6 +14,9 @@ import com.euphoria.party.manager.PartyBuffManager;
 import com.euphoria.party.manager.PartyAchievementManager;
 import com.euphoria.party.manager.PartyScoreboardManager;
 import com.euphoria.party.manager.PartyLeaderboardManager;
+import com.euphoria.party.manager.PartyTickEngine;
+import com.euphoria.party.util.MessageTemplates;
+import com.euphoria.party.util.PartyConfig;
 
 public class EuphoriaPartyPlugin extends PluginBase {
     
@@ -25,6 +28,10 @@ public class EuphoriaPartyPlugin extends PluginBase {
     private PartyScoreboardManager scoreboardManager;
     private PartyLeaderboardManager leaderboardManager;
     private PartyPlaceholders placeholders;
+    private PartyTickEngine tickEngine;
+    private PartyTickEngine.Phase autoSavePhase;
+    private volatile PartyConfig partyConfig;
+    private volatile MessageTemplates messages;
     
     @Override
     public void onLoad() {
@@ -35,8 +42,11 @@ public class EuphoriaPartyPlugin extends PluginBase {
     public void onEnable() {
         // Save default config
         this.saveDefaultConfig();
+        this.partyConfig = PartyConfig.load(this.getConfig());
+        this.messages = MessageTemplates.load(this.getConfig());
         
-        // Initialize managers
+        // Initialize managers; they register their periodic work with the tick engine
+        this.tickEngine = new PartyTickEngine(this);
         this.partyManager = new PartyManager(this);
         this.hudManager = new HUDManager(this);
         this.buffManager = new PartyBuffManager(this);
@@ -71,16 +81,17 @@ public class EuphoriaPartyPlugin extends PluginBase {
         this.buffManager.startBuffTask();
         this.scoreboardManager.startScoreboardTask();
         
-        // Auto-save task (every 5 minutes) - only saves if there are players online and parties exist
-        this.getServer().getScheduler().scheduleDelayedRepeatingTask(this, () -> {
+        // Auto-save task (every 5 minutes by default) - only writes parties that changed since the last save
+        this.autoSavePhase = this.tickEngine.addTask("auto-save", partyConfig.getAutoSaveInterval(), tick -> {
             // Clean up expired invites
             partyManager.cleanupExpiredInvites();
             
             // Save if needed
-            if (this.getServer().getOnlinePlayers().size() > 0 && partyManager.hasParties()) {
+            if (partyManager.hasUnsavedChanges()) {
                 partyManager.saveAllParties();
             }
-        }, 6000, 6000); // 6000 ticks = 5 minutes
+        });
+        this.tickEngine.start();
         
         this.getLogger().info("Plugin enabled successfully");
     }
@@ -92,6 +103,7 @@ public class EuphoriaPartyPlugin extends PluginBase {
         try {
             // Save all party data synchronously (plugin is being disabled)
             if (partyManager != null) {
+                partyManager.awaitPendingSaves(); // Queued async saves may never run after this
                 partyManager.saveAllParties(true); // Force synchronous save
             }
             
@@ -102,6 +114,8 @@ public class EuphoriaPartyPlugin extends PluginBase {
             if (partyManager != null) {
                 partyManager.stopMarkerTask();
                 partyManager.stopCleanupTask();
+                partyManager.stopProximityWorkers();
+                partyManager.closeStorage();
             }
             if (buffManager != null) {
                 buffManager.stopBuffTask();
@@ -109,6 +123,9 @@ public class EuphoriaPartyPlugin extends PluginBase {
             if (scoreboardManager != null) {
                 scoreboardManager.stopScoreboardTask();
             }
+            if (tickEngine != null) {
+                tickEngine.stop();
+            }
             
             this.getLogger().info("Plugin disabled successfully");
         } catch (Exception e) {
@@ -144,14 +161,30 @@ public class EuphoriaPartyPlugin extends PluginBase {
         return leaderboardManager;
     }
     
+    public PartyTickEngine getTickEngine() {
+        return tickEngine;
+    }
+    
     public String getMessage(String key) {
-        String prefix = this.getConfig().getString("messages.prefix", "§8[§6Party§8]§r ");
-        String message = this.getConfig().getString("messages." + key, key);
-        return prefix + message;
+        return messages.get(key).render();
     }
     
     public String getMessageWithoutPrefix(String key) {
-        return this.getConfig().getString("messages." + key, key);
+        return messages.getWithoutPrefix(key).render();
+    }
+    
+    /**
+     * @return Settings of the current config
+     */
+    public PartyConfig getPartyConfig() {
+        return partyConfig;
+    }
+    
+    /**
+     * @return Compiled messages and formats of the current config
+     */
+    public MessageTemplates getMessages() {
+        return messages;
     }
     
     /**
@@ -160,12 +193,25 @@ public class EuphoriaPartyPlugin extends PluginBase {
     public void reloadConfiguration() {
         try {
             this.reloadConfig();
+            this.partyConfig = PartyConfig.load(this.getConfig());
+            this.messages = MessageTemplates.load(this.getConfig());
             
             // Reload manager configurations
             if (partyManager != null) {
                 partyManager.reloadConfig();
             }
             
+            if (hudManager != null) {
+                hudManager.reloadConfig();
+            }
+            
+            if (tickEngine != null) {
+                tickEngine.reloadConfig();
+                if (autoSavePhase != null) {
+                    autoSavePhase.setPeriod(partyConfig.getAutoSaveInterval());
+                }
+            }
+            
             this.getLogger().info("Configuration reloaded successfully");
         } catch (Exception e) {
             this.getLogger().error("Error reloading configuration", e);
@@ -8,14 +8,17 @@ import cn.nukkit.command.data.CommandParameter;
 import com.euphoria.party.EuphoriaPartyPlugin;
 import com.euphoria.party.model.Party;
 
+import java.io.IOException;
 import java.util.UUID;
 
 public class PartyAdminCommand extends Command {
     
+    private static final String DEFAULT_EXPORT_FILE = "parties-export.json";
+    
     private final EuphoriaPartyPlugin plugin;
     
     public PartyAdminCommand(EuphoriaPartyPlugin plugin) {
-        super("partyadmin", "Party administration command", "/partyadmin <disband|list|info|teleport> [args]", new String[]{"pa"});
+        super("partyadmin", "Party administration command", "/partyadmin <disband|list|info|teleport|export|import> [args]", new String[]{"pa"});
         this.plugin = plugin;
         
         // Add command parameters for auto-completion
@@ -26,6 +29,12 @@ public class PartyAdminCommand extends Command {
                 CommandParameter.newEnum("action", new String[]{"list", "reload", "health"})
         });
         
+        // Data conversion commands with an optional file name
+        this.commandParameters.put("withFile", new CommandParameter[]{
+                CommandParameter.newEnum("action", new String[]{"export", "import"}),
+                CommandParameter.newType("file", true, CommandParamType.STRING)
+        });
+        
         // Commands with player target
         this.commandParameters.put("withPlayer", new CommandParameter[]{
                 CommandParameter.newEnum("action", new String[]{"disband", "info", "teleport"}),
@@ -40,6 +49,11 @@ public class PartyAdminCommand extends Command {
             return true;
         }
         
+        if (!plugin.getPartyManager().isReady()) {
+            sender.sendMessage(plugin.getMessage("data-loading"));
+            return true;
+        }
+        
         if (args.length == 0) {
             sendHelp(sender);
             return true;
@@ -60,6 +74,10 @@ public class PartyAdminCommand extends Command {
                 return handleReload(sender);
             case "health":
                 return handleHealth(sender);
+            case "export":
+                return handleExport(sender, args);
+            case "import":
+                return handleImport(sender, args);
             case "help":
             default:
                 sendHelp(sender);
@@ -86,11 +104,8 @@ public class PartyAdminCommand extends Command {
         }
         
         // Notify all members
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null) {
-                member.sendMessage("§cYour party has been disbanded by an administrator.");
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            member.sendMessage("§cYour party has been disbanded by an administrator.");
         }
         
         plugin.getPartyManager().disbandParty(party.getId());
@@ -113,16 +128,10 @@ public class PartyAdminCommand extends Command {
         int count = 0;
         for (Party party : parties) {
             count++;
-            Player leader = plugin.getServer().getPlayer(party.getLeader()).orElse(null);
+            Player leader = plugin.getPartyManager().getPresence().getPlayer(party.getLeader());
             String leaderName = leader != null ? leader.getName() : party.getLeader().toString();
             
-            int onlineCount = 0;
-            for (UUID memberId : party.getMembers()) {
-                Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (member != null && member.isOnline()) {
-                    onlineCount++;
-                }
-            }
+            int onlineCount = plugin.getPartyManager().getPresence().getOnlineCount(party);
             
             sender.sendMessage("§7" + count + ". §fLeader: §e" + leaderName + 
                 " §7| §fMembers: §e" + onlineCount + "§7/§e" + party.getMemberCount() + 
@@ -151,7 +160,7 @@ public class PartyAdminCommand extends Command {
             return false;
         }
         
-        Player leader = plugin.getServer().getPlayer(party.getLeader()).orElse(null);
+        Player leader = plugin.getPartyManager().getPresence().getPlayer(party.getLeader());
         String leaderName = leader != null ? leader.getName() : party.getLeader().toString();
         
         sender.sendMessage("§8========== §6Party Info §8==========");
@@ -159,8 +168,8 @@ public class PartyAdminCommand extends Command {
         sender.sendMessage("§eLeader: §f" + leaderName);
         sender.sendMessage("§eMembers (§f" + party.getMemberCount() + "§e):");
         
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
+        for (UUID memberId : party.getMembersView()) {
+            Player member = plugin.getPartyManager().getPresence().getPlayer(memberId);
             String memberName = member != null ? member.getName() : memberId.toString();
             String status = member != null && member.isOnline() ? "§a●" : "§c●";
             String role = party.isLeader(memberId) ? " §e[Leader]" : "";
@@ -235,6 +244,50 @@ public class PartyAdminCommand extends Command {
         return true;
     }
     
+    private boolean handleExport(CommandSender sender, String[] args) {
+        String fileName = args.length >= 2 ? args[1] : DEFAULT_EXPORT_FILE;
+        if (!isValidFileName(fileName)) {
+            sender.sendMessage("§cFile name must be a plain .json file name!");
+            return false;
+        }
+        
+        if (plugin.getPartyManager().exportParties(fileName)) {
+            sender.sendMessage("§aExported " + plugin.getPartyManager().getAllParties().size() + " parties to " + fileName);
+        } else {
+            sender.sendMessage("§cExport failed, check the console for details.");
+        }
+        return true;
+    }
+    
+    private boolean handleImport(CommandSender sender, String[] args) {
+        String fileName = args.length >= 2 ? args[1] : DEFAULT_EXPORT_FILE;
+        if (!isValidFileName(fileName)) {
+            sender.sendMessage("§cFile name must be a plain .json file name!");
+            return false;
+        }
+        
+        int count;
+        try {
+            count = plugin.getPartyManager().importParties(fileName);
+        } catch (IOException e) {
+            sender.sendMessage("§cImport aborted, the current parties were kept: " + e.getMessage());
+            return false;
+        }
+        if (count < 0) {
+            sender.sendMessage("§c" + fileName + " was not found in the plugin folder!");
+            return false;
+        }
+        sender.sendMessage("§aImported " + count + " parties from " + fileName + ", replacing the previous data.");
+        return true;
+    }
+    
+    /**
+     * Only allow files directly in the plugin folder
+     */
+    private boolean isValidFileName(String fileName) {
+        return fileName.endsWith(".json") && !fileName.contains("/") && !fileName.contains("\\") && !fileName.contains("..");
+    }
+    
     private void sendHelp(CommandSender sender) {
         sender.sendMessage("§8========== §6Party Admin Commands §8==========");
         sender.sendMessage("§e/partyadmin disband <player> §7- Force disband a party");
@@ -243,6 +296,8 @@ public class PartyAdminCommand extends Command {
         sender.sendMessage("§e/partyadmin teleport <player> §7- Teleport to a party's home");
         sender.sendMessage("§e/partyadmin reload §7- Reload the configuration");
         sender.sendMessage("§e/partyadmin health §7- Check plugin health status");
+        sender.sendMessage("§e/partyadmin export [file] §7- Export all parties to JSON");
+        sender.sendMessage("§e/partyadmin import [file] §7- Replace all parties with a JSON export");
         sender.sendMessage("§8================================");
     }
 }
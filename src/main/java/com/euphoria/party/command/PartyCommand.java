@@ -50,6 +50,11 @@ public class PartyCommand extends Command {
         
         Player player = (Player) sender;
         
+        if (!plugin.getPartyManager().isReady()) {
+            player.sendMessage(plugin.getMessage("data-loading"));
+            return true;
+        }
+        
         if (args.length == 0) {
             sendHelp(player);
             return true;
@@ -145,9 +150,6 @@ public class PartyCommand extends Command {
         
         player.sendMessage(plugin.getMessage("party-created"));
         
-        // Check for party creation achievement
-        plugin.getAchievementManager().checkAchievements(party);
-        
         return true;
     }
     
@@ -160,7 +162,7 @@ public class PartyCommand extends Command {
         // Check cooldown
         if (plugin.getPartyManager().isOnCooldown(player.getUniqueId())) {
             int remaining = plugin.getPartyManager().getRemainingCooldown(player.getUniqueId());
-            player.sendMessage(plugin.getMessage("command-cooldown").replace("{seconds}", String.valueOf(remaining)));
+            player.sendMessage(plugin.getMessages().get("command-cooldown").render("seconds", remaining));
             return true;
         }
         
@@ -193,26 +195,26 @@ public class PartyCommand extends Command {
         
         // Check if already invited
         if (party.hasInvite(target.getUniqueId())) {
-            player.sendMessage(plugin.getMessage("already-invited").replace("{player}", target.getName()));
+            player.sendMessage(plugin.getMessages().get("already-invited").render("player", target.getName()));
             return true;
         }
         
-        int maxMembers = plugin.getConfig().getInt("party.max-members", 8);
+        int maxMembers = plugin.getPartyConfig().getMaxMembers();
         if (party.getMemberCount() >= maxMembers) {
             player.sendMessage(plugin.getMessage("party-full"));
             return true;
         }
         
         // Check max invites
-        int maxInvites = plugin.getConfig().getInt("party.max-pending-invites", 10);
-        if (party.getInvites().size() >= maxInvites) {
+        int maxInvites = plugin.getPartyConfig().getMaxPendingInvites();
+        if (party.getInviteCount() >= maxInvites) {
             player.sendMessage(plugin.getMessage("too-many-invites"));
             return true;
         }
         
         plugin.getPartyManager().invitePlayer(party, target.getUniqueId());
-        player.sendMessage(plugin.getMessage("invite-sent").replace("{player}", target.getName()));
-        target.sendMessage(plugin.getMessage("invite-received").replace("{player}", player.getName()));
+        player.sendMessage(plugin.getMessages().get("invite-sent").render("player", target.getName()));
+        target.sendMessage(plugin.getMessages().get("invite-received").render("player", player.getName()));
         
         // Update cooldown
         plugin.getPartyManager().updateCooldown(player.getUniqueId());
@@ -241,16 +243,10 @@ public class PartyCommand extends Command {
         }
         
         // Notify all party members
-        for (UUID memberId : invitingParty.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null) {
-                member.sendMessage(plugin.getMessage("player-joined").replace("{player}", player.getName()));
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(invitingParty)) {
+            member.sendMessage(plugin.getMessages().get("player-joined").render("player", player.getName()));
         }
         
-        // Check achievements after new member joins
-        plugin.getAchievementManager().checkAchievements(invitingParty);
-        
         return true;
     }
     
@@ -263,17 +259,14 @@ public class PartyCommand extends Command {
         Party party = plugin.getPartyManager().getPlayerParty(player.getUniqueId());
         
         // Notify all members before leaving
-        for (UUID memberId : party.getMembers()) {
-            if (memberId.equals(player.getUniqueId())) continue;
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            if (member.getUniqueId().equals(player.getUniqueId())) continue;
             
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null) {
-                member.sendMessage(plugin.getMessage("player-left").replace("{player}", player.getName()));
-            }
+            member.sendMessage(plugin.getMessages().get("player-left").render("player", player.getName()));
         }
         
         plugin.getPartyManager().leaveParty(player.getUniqueId());
-        player.sendMessage(plugin.getMessage("player-left").replace("{player}", "You"));
+        player.sendMessage(plugin.getMessages().get("player-left").render("player", "You"));
         
         return true;
     }
@@ -319,13 +312,10 @@ public class PartyCommand extends Command {
         plugin.getPartyManager().kickPlayer(party, target.getUniqueId());
         
         // Notify
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null) {
-                member.sendMessage(plugin.getMessage("player-kicked").replace("{player}", target.getName()));
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            member.sendMessage(plugin.getMessages().get("player-kicked").render("player", target.getName()));
         }
-        target.sendMessage(plugin.getMessage("player-kicked").replace("{player}", "You were"));
+        target.sendMessage(plugin.getMessages().get("player-kicked").render("player", "You were"));
         
         return true;
     }
@@ -371,12 +361,9 @@ public class PartyCommand extends Command {
         party.transferLeadership(target.getUniqueId());
         
         // Notify all party members
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null) {
-                member.sendMessage(plugin.getMessage("leader-transferred")
-                    .replace("{player}", target.getName()));
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            member.sendMessage(plugin.getMessages().get("leader-transferred")
+                .render("player", target.getName()));
         }
         
         return true;
@@ -390,8 +377,8 @@ public class PartyCommand extends Command {
         }
         
         player.sendMessage("§8[§6Party Members§8]");
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
+        for (UUID memberId : party.getMembersView()) {
+            Player member = plugin.getPartyManager().getPresence().getPlayer(memberId);
             String name = member != null ? member.getName() : memberId.toString();
             String status = member != null && member.isOnline() ? "§a●" : "§c●";
             String role = party.isLeader(memberId) ? " §e[Leader]" : "";
@@ -408,15 +395,12 @@ public class PartyCommand extends Command {
             return true;
         }
         
-        Player leader = plugin.getServer().getPlayer(party.getLeader()).orElse(null);
+        Player leader = plugin.getPartyManager().getPresence().getPlayer(party.getLeader());
         String leaderName = leader != null ? leader.getName() : "Unknown";
         
         int onlineCount = 0;
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null && member.isOnline()) {
-                onlineCount++;
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            onlineCount++;
         }
         
         // Calculate party age
@@ -433,7 +417,7 @@ public class PartyCommand extends Command {
         player.sendMessage("§8========== §6Party Info §8==========");
         player.sendMessage("§eLeader: §f" + leaderName);
         player.sendMessage("§eMembers: §f" + onlineCount + "§7/§f" + party.getMemberCount());
-        player.sendMessage("§ePending Invites: §f" + party.getInvites().size());
+        player.sendMessage("§ePending Invites: §f" + party.getInviteCount());
         player.sendMessage("§eParty Home: " + (party.hasHome() ? "§a✓" : "§c✗"));
         player.sendMessage("§eAge: §f" + age);
         player.sendMessage("§8================================");
@@ -466,7 +450,7 @@ public class PartyCommand extends Command {
     
     private boolean handleWarpLeader(Player player) {
         // Check if teleport is enabled
-        if (!plugin.getConfig().getBoolean("party.teleport-enabled", true)) {
+        if (!plugin.getPartyConfig().isTeleportEnabled()) {
             player.sendMessage(plugin.getMessage("teleport-disabled"));
             return true;
         }
@@ -474,7 +458,7 @@ public class PartyCommand extends Command {
         // Check teleport cooldown
         if (plugin.getPartyManager().isOnTeleportCooldown(player.getUniqueId())) {
             int remaining = plugin.getPartyManager().getRemainingTeleportCooldown(player.getUniqueId());
-            player.sendMessage(plugin.getMessage("teleport-cooldown").replace("{seconds}", String.valueOf(remaining)));
+            player.sendMessage(plugin.getMessages().get("teleport-cooldown").render("seconds", remaining));
             return true;
         }
         
@@ -490,7 +474,7 @@ public class PartyCommand extends Command {
             return true;
         }
         
-        Player leader = plugin.getServer().getPlayer(party.getLeader()).orElse(null);
+        Player leader = plugin.getPartyManager().getPresence().getPlayer(party.getLeader());
         if (leader == null || !leader.isOnline()) {
             player.sendMessage("§cParty leader is not online!");
             return true;
@@ -499,14 +483,14 @@ public class PartyCommand extends Command {
         Location leaderLoc = leader.getLocation();
         
         // Security: Check distance limit
-        int maxDistance = plugin.getConfig().getInt("security.max-teleport-distance", 10000);
+        int maxDistance = plugin.getPartyConfig().getMaxTeleportDistance();
         if (player.distance(leaderLoc) > maxDistance) {
             player.sendMessage(plugin.getMessage("teleport-too-far"));
             return true;
         }
         
         // Safety: Check if location is safe
-        boolean safeCheck = plugin.getConfig().getBoolean("security.safe-teleport", true);
+        boolean safeCheck = plugin.getPartyConfig().isSafeTeleport();
         if (safeCheck && !isSafeLocation(leaderLoc)) {
             player.sendMessage(plugin.getMessage("unsafe-location"));
             return true;
@@ -523,7 +507,7 @@ public class PartyCommand extends Command {
     
     private boolean handleHome(Player player) {
         // Check if teleport is enabled
-        if (!plugin.getConfig().getBoolean("party.teleport-enabled", true)) {
+        if (!plugin.getPartyConfig().isTeleportEnabled()) {
             player.sendMessage(plugin.getMessage("teleport-disabled"));
             return true;
         }
@@ -531,7 +515,7 @@ public class PartyCommand extends Command {
         // Check teleport cooldown
         if (plugin.getPartyManager().isOnTeleportCooldown(player.getUniqueId())) {
             int remaining = plugin.getPartyManager().getRemainingTeleportCooldown(player.getUniqueId());
-            player.sendMessage(plugin.getMessage("teleport-cooldown").replace("{seconds}", String.valueOf(remaining)));
+            player.sendMessage(plugin.getMessages().get("teleport-cooldown").render("seconds", remaining));
             return true;
         }
         
@@ -549,14 +533,14 @@ public class PartyCommand extends Command {
         Location home = party.getHome();
         
         // Security: Check distance limit
-        int maxDistance = plugin.getConfig().getInt("security.max-teleport-distance", 10000);
+        int maxDistance = plugin.getPartyConfig().getMaxTeleportDistance();
         if (player.distance(home) > maxDistance) {
             player.sendMessage(plugin.getMessage("teleport-too-far"));
             return true;
         }
         
         // Safety: Check if location is safe
-        boolean safeCheck = plugin.getConfig().getBoolean("security.safe-teleport", true);
+        boolean safeCheck = plugin.getPartyConfig().isSafeTeleport();
         if (safeCheck && !isSafeLocation(home)) {
             player.sendMessage(plugin.getMessage("unsafe-location"));
             return true;
@@ -622,13 +606,7 @@ public class PartyCommand extends Command {
         }
         
         party.setName(name);
-        plugin.getPartyManager().broadcastToParty(party, plugin.getMessage("party-name-set").replace("{name}", name));
-        
-        // Update tab lists for all party members
-        if (plugin.getConfig().getBoolean("party.tab-list-formatting", false)) {
-            com.euphoria.party.listener.PartyTabListListener tabListListener = new com.euphoria.party.listener.PartyTabListListener(plugin);
-            tabListListener.updatePartyTabLists(party);
-        }
+        plugin.getPartyManager().broadcastToParty(party, plugin.getMessages().get("party-name-set").render("name", name));
         
         return true;
     }
@@ -674,7 +652,7 @@ public class PartyCommand extends Command {
         targetParty.addJoinRequest(player.getUniqueId());
         player.sendMessage("§aJoin request sent to " + (targetParty.hasName() ? targetParty.getName() : target.getName() + "'s party") + "!");
         
-        Player leader = plugin.getServer().getPlayer(targetParty.getLeader()).orElse(null);
+        Player leader = plugin.getPartyManager().getPresence().getPlayer(targetParty.getLeader());
         if (leader != null) {
             leader.sendMessage("§e" + player.getName() + " §7wants to join your party! Use §e/party arequest " + player.getName() + " §7to accept.");
         }
@@ -694,16 +672,16 @@ public class PartyCommand extends Command {
             return true;
         }
         
-        party.cleanExpiredJoinRequests(plugin.getConfig().getLong("party.invite-expiration", 300000L));
+        party.cleanExpiredJoinRequests(plugin.getPartyConfig().getInviteExpiration());
         
-        if (party.getJoinRequests().isEmpty()) {
+        if (party.getJoinRequestCount() == 0) {
             player.sendMessage("§7No pending join requests.");
             return true;
         }
         
         player.sendMessage("§8========== §6Join Requests §8==========");
-        for (UUID requestId : party.getJoinRequests().keySet()) {
-            Player requester = plugin.getServer().getPlayer(requestId).orElse(null);
+        for (UUID requestId : party.getJoinRequestsView().keySet()) {
+            Player requester = plugin.getPartyManager().getPresence().getPlayer(requestId);
             if (requester != null) {
                 player.sendMessage("§e" + requester.getName() + " §7- /party arequest " + requester.getName());
             }
@@ -740,7 +718,7 @@ public class PartyCommand extends Command {
             return true;
         }
         
-        if (party.getMemberCount() >= plugin.getConfig().getInt("party.max-members", 8)) {
+        if (party.getMemberCount() >= plugin.getPartyConfig().getMaxMembers()) {
             player.sendMessage(plugin.getMessage("party-full"));
             party.removeJoinRequest(target.getUniqueId());
             return true;
@@ -749,9 +727,6 @@ public class PartyCommand extends Command {
         plugin.getPartyManager().addPlayerToParty(target, party);
         player.sendMessage("§aAccepted join request from " + target.getName() + "!");
         
-        // Check achievements after new member joins
-        plugin.getAchievementManager().checkAchievements(party);
-        
         return true;
     }
     
@@ -908,8 +883,7 @@ public class PartyCommand extends Command {
             return true;
         }
         
-        party.banPlayer(target.getUniqueId());
-        plugin.getPartyManager().removePlayerFromParty(target);
+        plugin.getPartyManager().banPlayer(party, target.getUniqueId());
         
         plugin.getPartyManager().broadcastToParty(party, "§c" + target.getName() + " was banned from the party!");
         target.sendMessage("§cYou have been banned from the party!");
@@ -989,8 +963,8 @@ public class PartyCommand extends Command {
         party.claimDailyReward(player.getUniqueId());
         
         int consecutiveDays = party.getConsecutiveDays();
-        int baseXP = plugin.getConfig().getInt("party.daily-reward-xp", 50);
-        int bonusXP = (consecutiveDays - 1) * plugin.getConfig().getInt("party.daily-reward-streak-bonus", 10);
+        int baseXP = plugin.getPartyConfig().getDailyRewardXp();
+        int bonusXP = (consecutiveDays - 1) * plugin.getPartyConfig().getDailyRewardStreakBonus();
         int totalXP = baseXP + bonusXP;
         
         player.addExperience(totalXP);
@@ -1002,9 +976,6 @@ public class PartyCommand extends Command {
             player.addExperience(50);
         }
         
-        // Check achievements
-        plugin.getAchievementManager().checkAchievements(party);
-        
         return true;
     }
     
@@ -1175,12 +1146,6 @@ public class PartyCommand extends Command {
         party.setColor(colorCode);
         plugin.getPartyManager().broadcastToParty(party, "§eParty color changed to " + colorCode + colorName + "§e!");
         
-        // Update tab lists for all party members
-        if (plugin.getConfig().getBoolean("party.tab-list-formatting", false)) {
-            com.euphoria.party.listener.PartyTabListListener tabListListener = new com.euphoria.party.listener.PartyTabListListener(plugin);
-            tabListListener.updatePartyTabLists(party);
-        }
-        
         return true;
     }
     
@@ -1211,12 +1176,6 @@ public class PartyCommand extends Command {
         party.setIcon(icon);
         plugin.getPartyManager().broadcastToParty(party, "§eParty icon changed to " + party.getColor() + icon + "§e!");
         
-        // Update tab lists for all party members
-        if (plugin.getConfig().getBoolean("party.tab-list-formatting", false)) {
-            com.euphoria.party.listener.PartyTabListListener tabListListener = new com.euphoria.party.listener.PartyTabListListener(plugin);
-            tabListListener.updatePartyTabLists(party);
-        }
-        
         return true;
     }
     
@@ -1241,10 +1200,10 @@ public class PartyCommand extends Command {
         
         if (action.equals("list")) {
             player.sendMessage("§8========== §6Party Allies §8==========");
-            if (party.getAllies().isEmpty()) {
+            if (party.getAllyCount() == 0) {
                 player.sendMessage("§7No allies yet.");
             } else {
-                for (UUID allyId : party.getAllies()) {
+                for (UUID allyId : party.getAlliesView()) {
                     Party ally = plugin.getPartyManager().getParty(allyId);
                     if (ally != null) {
                         String name = ally.hasName() ? ally.getColor() + ally.getIcon() + " " + ally.getName() : "Party #" + allyId.toString().substring(0, 8);
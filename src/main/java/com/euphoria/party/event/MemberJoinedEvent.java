@@ -0,0 +1,22 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.model.Party;
+
+import java.util.UUID;
+
+/**
+ * A player became a member of a party
+ */
+public class MemberJoinedEvent extends PartyEvent {
+    
+    private final UUID playerId;
+    
+    public MemberJoinedEvent(Party party, UUID playerId) {
+        super(party);
+        this.playerId = playerId;
+    }
+    
+    public UUID getPlayerId() {
+        return playerId;
+    }
+}
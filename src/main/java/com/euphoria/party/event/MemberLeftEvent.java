@@ -0,0 +1,35 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.model.Party;
+
+import java.util.UUID;
+
+/**
+ * A player stopped being a member of a party
+ */
+public class MemberLeftEvent extends PartyEvent {
+    
+    public enum Reason {
+        LEFT,
+        KICKED,
+        BANNED,
+        REMOVED  // Too far from the leader or changed world
+    }
+    
+    private final UUID playerId;
+    private final Reason reason;
+    
+    public MemberLeftEvent(Party party, UUID playerId, Reason reason) {
+        super(party);
+        this.playerId = playerId;
+        this.reason = reason;
+    }
+    
+    public UUID getPlayerId() {
+        return playerId;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+}
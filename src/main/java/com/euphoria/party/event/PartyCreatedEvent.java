@@ -0,0 +1,13 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.model.Party;
+
+/**
+ * A party was created; followed by a {@link MemberJoinedEvent} for its leader
+ */
+public class PartyCreatedEvent extends PartyEvent {
+    
+    public PartyCreatedEvent(Party party) {
+        super(party);
+    }
+}
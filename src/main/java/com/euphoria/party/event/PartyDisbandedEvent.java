@@ -0,0 +1,14 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.model.Party;
+
+/**
+ * A party was disbanded. The party still lists the members it had,
+ * none of which belong to a party any more.
+ */
+public class PartyDisbandedEvent extends PartyEvent {
+    
+    public PartyDisbandedEvent(Party party) {
+        super(party);
+    }
+}
@@ -0,0 +1,19 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.model.Party;
+
+/**
+ * Base class of the events published on the {@link PartyEventBus}
+ */
+public abstract class PartyEvent {
+    
+    private final Party party;
+    
+    protected PartyEvent(Party party) {
+        this.party = party;
+    }
+    
+    public Party getParty() {
+        return party;
+    }
+}
@@ -0,0 +1,49 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.EuphoriaPartyPlugin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Synchronous in-process bus for party changes.
+ *
+ * PartyManager publishes an event for every membership change and every
+ * persisted party change; caches and displays subscribe to update exactly
+ * what changed. Listeners run on the publishing thread (normally the main
+ * thread) and receive events of the subscribed type and its subclasses.
+ */
+public class PartyEventBus {
+    
+    private final EuphoriaPartyPlugin plugin;
+    private final Map<Class<?>, List<Consumer<PartyEvent>>> listeners = new ConcurrentHashMap<>();
+    
+    public PartyEventBus(EuphoriaPartyPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    public <E extends PartyEvent> void subscribe(Class<E> type, Consumer<? super E> listener) {
+        listeners.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>())
+            .add(event -> listener.accept(type.cast(event)));
+    }
+    
+    public void publish(PartyEvent event) {
+        for (Class<?> type = event.getClass(); type != Object.class; type = type.getSuperclass()) {
+            List<Consumer<PartyEvent>> subscribers = listeners.get(type);
+            if (subscribers == null) {
+                continue;
+            }
+            for (Consumer<PartyEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    // One broken listener must not stop the others
+                    plugin.getLogger().error("Error handling " + event.getClass().getSimpleName(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.euphoria.party.event;
+
+import com.euphoria.party.model.Party;
+
+/**
+ * Persisted state of a party changed: name, appearance, roles, stats, etc.
+ */
+public class PartyUpdatedEvent extends PartyEvent {
+    
+    public PartyUpdatedEvent(Party party) {
+        super(party);
+    }
+}
@@ -5,7 +5,6 @@ import com.euphoria.party.EuphoriaPartyPlugin;
 import com.euphoria.party.model.Party;
 import org.powernukkitx.placeholderapi.PlaceholderAPI;
 
-import java.util.UUID;
 
 public class PartyPlaceholders {
     
@@ -21,14 +20,14 @@ public class PartyPlaceholders {
         // %euphoria_party_size% - Number of members in player's party
         api.register("euphoria_party_size", (player, params) -> {
             Party party = plugin.getPartyManager().getPlayerParty(player.getUniqueId());
-            return party != null ? String.valueOf(party.getMembers().size()) : "0";
+            return party != null ? String.valueOf(party.getMemberCount()) : "0";
         });
         
         // %euphoria_party_leader% - Name of party leader
         api.register("euphoria_party_leader", (player, params) -> {
             Party party = plugin.getPartyManager().getPlayerParty(player.getUniqueId());
             if (party == null) return "None";
-            Player leader = plugin.getServer().getPlayer(party.getLeader()).get();
+            Player leader = plugin.getPartyManager().getPresence().getPlayer(party.getLeader());
             return leader != null ? leader.getName() : "Unknown";
         });
         
@@ -38,12 +37,9 @@ public class PartyPlaceholders {
             if (party == null) return "None";
             
             StringBuilder members = new StringBuilder();
-            for (UUID memberId : party.getMembers()) {
-                Player member = plugin.getServer().getPlayer(memberId).get();
-                if (member != null) {
-                    if (members.length() > 0) members.append(", ");
-                    members.append(member.getName());
-                }
+            for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+                if (members.length() > 0) members.append(", ");
+                members.append(member.getName());
             }
             return members.length() > 0 ? members.toString() : "None";
         });
@@ -53,13 +49,7 @@ public class PartyPlaceholders {
             Party party = plugin.getPartyManager().getPlayerParty(player.getUniqueId());
             if (party == null) return "0";
             
-            int online = 0;
-            for (UUID memberId : party.getMembers()) {
-                if (plugin.getServer().getPlayer(memberId).isPresent()) {
-                    online++;
-                }
-            }
-            return String.valueOf(online);
+            return String.valueOf(plugin.getPartyManager().getPresence().getOnlineCount(party));
         });
         
         // %euphoria_party_has_home% - Whether party has a home set
@@ -77,7 +67,7 @@ public class PartyPlaceholders {
         // %euphoria_party_invites% - Number of pending invites
         api.register("euphoria_party_invites", (player, params) -> {
             int count = 0;
-            long expirationTime = plugin.getConfig().getLong("party.invite-expiration", 300000);
+            long expirationTime = plugin.getPartyConfig().getInviteExpiration();
             for (Party party : plugin.getPartyManager().getAllParties()) {
                 if (party.hasInvite(player.getUniqueId()) && !party.isInviteExpired(player.getUniqueId(), expirationTime)) {
                     count++;
@@ -24,19 +24,16 @@ public class PartyEventListener implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         // Notify party members that player is online
-        if (!plugin.getConfig().getBoolean("party.notify-online-offline", true)) {
+        if (!plugin.getPartyConfig().isNotifyOnlineOffline()) {
             return;
         }
         
         Party party = plugin.getPartyManager().getPlayerParty(event.getPlayer().getUniqueId());
         if (party != null) {
-            for (java.util.UUID memberId : party.getMembers()) {
-                if (memberId.equals(event.getPlayer().getUniqueId())) continue;
+            for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+                if (member.getUniqueId().equals(event.getPlayer().getUniqueId())) continue;
                 
-                Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (member != null) {
-                    member.sendMessage("§a+ §7" + event.getPlayer().getName() + " §ais now online");
-                }
+                member.sendMessage("§a+ §7" + event.getPlayer().getName() + " §ais now online");
             }
         }
     }
@@ -50,18 +47,17 @@ public class PartyEventListener implements Listener {
             party.incrementDeaths();
             
             // Share XP if enabled
-            if (plugin.getConfig().getBoolean("party.share-xp", false)) {
+            if (plugin.getPartyConfig().isShareXp()) {
                 int totalXp = player.getExperience();
                 if (totalXp > 0) {
                     // Find nearby party members
                     java.util.List<Player> nearbyMembers = new java.util.ArrayList<>();
-                    double shareRadius = plugin.getConfig().getDouble("party.xp-share-radius", 50.0);
+                    double shareRadius = plugin.getPartyConfig().getXpShareRadius();
                     
-                    for (java.util.UUID memberId : party.getMembers()) {
-                        if (memberId.equals(player.getUniqueId())) continue;
+                    for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+                        if (member.getUniqueId().equals(player.getUniqueId())) continue;
                         
-                        Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                        if (member != null && member.getLevel() == player.getLevel()) {
+                        if (member.getLevel() == player.getLevel()) {
                             if (member.distance(player) <= shareRadius) {
                                 nearbyMembers.add(member);
                             }
@@ -96,15 +92,14 @@ public class PartyEventListener implements Listener {
             party.incrementKills();
             
             // Share XP if enabled
-            if (plugin.getConfig().getBoolean("party.share-xp", false)) {
+            if (plugin.getPartyConfig().isShareXp()) {
                 java.util.List<Player> nearbyMembers = new java.util.ArrayList<>();
-                double shareRadius = plugin.getConfig().getDouble("party.xp-share-radius", 50.0);
+                double shareRadius = plugin.getPartyConfig().getXpShareRadius();
                 
-                for (java.util.UUID memberId : party.getMembers()) {
-                    if (memberId.equals(player.getUniqueId())) continue;
+                for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+                    if (member.getUniqueId().equals(player.getUniqueId())) continue;
                     
-                    Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                    if (member != null && member.getLevel() == player.getLevel()) {
+                    if (member.getLevel() == player.getLevel()) {
                         if (member.distance(player) <= shareRadius) {
                             nearbyMembers.add(member);
                         }
@@ -121,24 +116,23 @@ public class PartyEventListener implements Listener {
             }
             
             // Share loot if enabled
-            if (plugin.getConfig().getBoolean("party.share-loot", false)) {
+            if (plugin.getPartyConfig().isShareLoot()) {
                 Item[] drops = event.getDrops();
                 if (drops.length > 0) {
                     java.util.List<Player> nearbyMembers = new java.util.ArrayList<>();
-                    double shareRadius = plugin.getConfig().getDouble("party.loot-share-radius", 30.0);
+                    double shareRadius = plugin.getPartyConfig().getLootShareRadius();
                     
-                    for (java.util.UUID memberId : party.getMembers()) {
-                        if (memberId.equals(player.getUniqueId())) continue;
+                    for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+                        if (member.getUniqueId().equals(player.getUniqueId())) continue;
                         
-                        Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                        if (member != null && member.getLevel() == player.getLevel()) {
+                        if (member.getLevel() == player.getLevel()) {
                             if (member.distance(player) <= shareRadius) {
                                 nearbyMembers.add(member);
                             }
                         }
                     }
                     
-                    if (!nearbyMembers.isEmpty() && plugin.getConfig().getDouble("party.loot-share-chance", 0.3) > Math.random()) {
+                    if (!nearbyMembers.isEmpty() && plugin.getPartyConfig().getLootShareChance() > Math.random()) {
                         // Randomly select an item to duplicate
                         Item sharedItem = drops[(int) (Math.random() * drops.length)].clone();
                         
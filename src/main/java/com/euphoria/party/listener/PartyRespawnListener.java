@@ -26,7 +26,7 @@ public class PartyRespawnListener implements Listener {
     
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerDeath(PlayerDeathEvent event) {
-        if (!plugin.getConfig().getBoolean("party.respawn-at-home", false)) {
+        if (!plugin.getPartyConfig().isRespawnAtHome()) {
             return;
         }
         
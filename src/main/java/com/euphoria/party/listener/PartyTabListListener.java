@@ -7,19 +7,46 @@ import cn.nukkit.event.Listener;
 import cn.nukkit.event.player.PlayerJoinEvent;
 import cn.nukkit.scheduler.Task;
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.event.MemberJoinedEvent;
+import com.euphoria.party.event.MemberLeftEvent;
+import com.euphoria.party.event.PartyDisbandedEvent;
+import com.euphoria.party.event.PartyEventBus;
+import com.euphoria.party.event.PartyUpdatedEvent;
 import com.euphoria.party.model.Party;
 
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class PartyTabListListener implements Listener {
     
     private final EuphoriaPartyPlugin plugin;
+    private final Map<UUID, String> partyPrefixes = new ConcurrentHashMap<>();  // Last applied prefix per party
     
     public PartyTabListListener(EuphoriaPartyPlugin plugin) {
         this.plugin = plugin;
+        
+        // Refresh only the players whose prefix can have changed
+        PartyEventBus events = plugin.getPartyManager().getEventBus();
+        events.subscribe(MemberJoinedEvent.class, event -> updatePlayerTabList(event.getPlayerId()));
+        events.subscribe(MemberLeftEvent.class, event -> updatePlayerTabList(event.getPlayerId()));
+        events.subscribe(PartyDisbandedEvent.class, event -> {
+            partyPrefixes.remove(event.getParty().getId());
+            updatePartyTabLists(event.getParty());
+        });
+        events.subscribe(PartyUpdatedEvent.class, event -> {
+            // Most updates are stats; skip them unless name or color changed
+            Party party = event.getParty();
+            String prefix = formatPrefix(party);
+            if (!prefix.equals(partyPrefixes.put(party.getId(), prefix))) {
+                updatePartyTabLists(party);
+            }
+        });
     }
     
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
-        if (!plugin.getConfig().getBoolean("party.tab-list-formatting", false)) {
+        if (!plugin.getPartyConfig().isTabListFormatting()) {
             return;
         }
         
@@ -33,7 +60,7 @@ public class PartyTabListListener implements Listener {
     }
     
     public void updateAllTabLists() {
-        if (!plugin.getConfig().getBoolean("party.tab-list-formatting", false)) {
+        if (!isEnabled()) {
             return;
         }
         
@@ -42,16 +69,23 @@ public class PartyTabListListener implements Listener {
         }
     }
     
+    private void updatePlayerTabList(UUID playerId) {
+        if (!isEnabled()) {
+            return;
+        }
+        
+        Player player = plugin.getPartyManager().getPresence().getPlayer(playerId);
+        if (player != null) {
+            updatePlayerTabList(player);
+        }
+    }
+    
     private void updatePlayerTabList(Player player) {
         Party party = plugin.getPartyManager().getPlayerParty(player.getUniqueId());
         
         if (party != null && party.hasName()) {
-            String prefix = plugin.getConfig().getString("party.tab-list-prefix-format", "{color}[{party}] §r");
-            prefix = prefix.replace("{party}", party.getName());
-            prefix = prefix.replace("{color}", party.getColor());
-            
             // Set player's display name (shown in tab list)
-            player.setDisplayName(prefix + player.getName());
+            player.setDisplayName(formatPrefix(party) + player.getName());
         } else {
             // Reset to normal name
             player.setDisplayName(player.getName());
@@ -59,11 +93,24 @@ public class PartyTabListListener implements Listener {
     }
     
     public void updatePartyTabLists(Party party) {
-        for (java.util.UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null) {
-                updatePlayerTabList(member);
-            }
+        if (!isEnabled()) {
+            return;
         }
+        
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            updatePlayerTabList(member);
+        }
+    }
+    
+    private String formatPrefix(Party party) {
+        if (!party.hasName()) {
+            return "";
+        }
+        return plugin.getMessages().getFormat("party.tab-list-prefix-format")
+            .render("party", party.getName(), "color", party.getColor());
+    }
+    
+    private boolean isEnabled() {
+        return plugin.getPartyConfig().isTabListFormatting();
     }
 }
@@ -6,6 +6,7 @@ import cn.nukkit.event.EventPriority;
 import cn.nukkit.event.Listener;
 import cn.nukkit.event.entity.EntityDamageByEntityEvent;
 import cn.nukkit.event.player.PlayerChatEvent;
+import cn.nukkit.event.player.PlayerJoinEvent;
 import cn.nukkit.event.player.PlayerQuitEvent;
 import com.euphoria.party.EuphoriaPartyPlugin;
 import com.euphoria.party.model.Party;
@@ -20,6 +21,12 @@ public class PlayerListener implements Listener {
         this.plugin = plugin;
     }
     
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Track the player before any other handler looks at party members
+        plugin.getPartyManager().onPlayerJoin(event.getPlayer());
+    }
+    
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
@@ -39,14 +46,11 @@ public class PlayerListener implements Listener {
         Party party = plugin.getPartyManager().getPlayerParty(playerId);
         if (party != null) {
             // Notify other members that player is offline
-            if (plugin.getConfig().getBoolean("party.notify-online-offline", true)) {
-                for (java.util.UUID memberId : party.getMembers()) {
-                    if (memberId.equals(event.getPlayer().getUniqueId())) continue;
+            if (plugin.getPartyConfig().isNotifyOnlineOffline()) {
+                for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+                    if (member.getUniqueId().equals(event.getPlayer().getUniqueId())) continue;
                     
-                    Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                    if (member != null) {
-                        member.sendMessage("§c- §7" + event.getPlayer().getName() + " §cis now offline");
-                    }
+                    member.sendMessage("§c- §7" + event.getPlayer().getName() + " §cis now offline");
                 }
             }
             
@@ -64,21 +68,21 @@ public class PlayerListener implements Listener {
     public void onPlayerChat(PlayerChatEvent event) {
         Player player = event.getPlayer();
         String message = event.getMessage();
-        String chatPrefix = plugin.getConfig().getString("party.party-chat-prefix", "@");
+        String chatPrefix = plugin.getPartyConfig().getPartyChatPrefix();
         
         // Check if message starts with party chat prefix
-        if (plugin.getConfig().getBoolean("party.party-chat-enabled", true) && message.startsWith(chatPrefix)) {
+        if (plugin.getPartyConfig().isPartyChatEnabled() && message.startsWith(chatPrefix)) {
             // Handle party chat
             handlePartyChat(event, player, message, chatPrefix);
             return;
         }
         
         // Add party name prefix to regular chat
-        if (plugin.getConfig().getBoolean("party.show-party-in-chat", true)) {
+        if (plugin.getPartyConfig().isShowPartyInChat()) {
             Party party = plugin.getPartyManager().getPlayerParty(player.getUniqueId());
             if (party != null && party.hasName()) {
-                String format = plugin.getConfig().getString("party.party-prefix-format", "§8[§6{party}§8] ");
-                String partyPrefix = format.replace("{party}", party.getName());
+                String partyPrefix = plugin.getMessages().getFormat("party.party-prefix-format")
+                    .render("party", party.getName());
                 
                 // Cancel the event and manually broadcast
                 event.setCancelled(true);
@@ -119,16 +123,11 @@ public class PlayerListener implements Listener {
         }
         
         // Format and send to all party members
-        String format = plugin.getConfig().getString("party.party-chat-format", "§8[§6Party§8] §f{player}§7: §f{message}");
-        String formattedMessage = format
-            .replace("{player}", player.getName())
-            .replace("{message}", actualMessage);
+        String formattedMessage = plugin.getMessages().getFormat("party.party-chat-format")
+            .render("player", player.getName(), "message", actualMessage);
         
-        for (java.util.UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null && member.isOnline()) {
-                member.sendMessage(formattedMessage);
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            member.sendMessage(formattedMessage);
         }
     }
 }
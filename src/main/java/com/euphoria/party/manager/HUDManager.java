@@ -1,32 +1,77 @@
 package com.euphoria.party.manager;
 
 import cn.nukkit.Player;
-import cn.nukkit.scheduler.Task;
-import cn.nukkit.scheduler.TaskHandler;
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.util.PartyConfig;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Coordinates and compass action bar.
+ *
+ * The coordinate format is compiled with the other messages and the
+ * direction texts are read once. Each player's
+ * last sent frame is kept as plain ints (block position and compass bucket)
+ * and a new action bar is only sent when one of them changes. Action bars
+ * are sent with a long display time and refreshed every refresh-interval
+ * ticks, so an unchanged HUD stays visible without a packet per update. Idle
+ * players are checked less and less often, up to the refresh interval.
+ * Players are spread over the ticks of the update interval by the tick
+ * engine, so each tick handles only a slice of them.
+ */
 public class HUDManager {
     
     private final EuphoriaPartyPlugin plugin;
     private final Map<UUID, Boolean> coordinatesEnabled;
     private final Map<UUID, Boolean> compassEnabled;
-    private TaskHandler hudTaskId = null;
+    private final Map<UUID, Frame> frames = new HashMap<>();  // Last sent frame per player, main thread only
+    private final StringBuilder buffer = new StringBuilder();
+    private PartyTickEngine.Phase hudPhase = null;
+    private int interval;
+    private int refreshInterval;
+    private boolean coordinatesDefault;
+    private boolean compassDefault;
+    private String[] directionTexts;
     
     public HUDManager(EuphoriaPartyPlugin plugin) {
         this.plugin = plugin;
         this.coordinatesEnabled = new ConcurrentHashMap<>();
         this.compassEnabled = new ConcurrentHashMap<>();
+        reloadConfig();
+    }
+    
+    /**
+     * Pick up the HUD settings of the current config snapshot
+     */
+    public void reloadConfig() {
+        PartyConfig config = plugin.getPartyConfig();
+        this.interval = config.getHudUpdateInterval();
+        this.refreshInterval = config.getHudRefreshInterval();
+        this.coordinatesDefault = config.isCoordinatesDefault();
+        this.compassDefault = config.isCompassDefault();
+        
+        String[] texts = new String[8];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = "§eDir: " + config.getDirection(i);
+        }
+        this.directionTexts = texts;
+        
+        // Resend everything in the new format, at the new cadence
+        frames.clear();
+        if (hudPhase != null) {
+            hudPhase.setPeriod(interval);
+        }
     }
     
     public void toggleCoordinates(Player player) {
         UUID uuid = player.getUniqueId();
-        boolean current = coordinatesEnabled.getOrDefault(uuid, 
-            plugin.getConfig().getBoolean("hud.coordinates.default-enabled", true));
+        boolean current = coordinatesEnabled.getOrDefault(uuid, coordinatesDefault);
         coordinatesEnabled.put(uuid, !current);
+        resetFrame(player);
         
         String message = !current ? 
             plugin.getMessage("coordinates-enabled") : 
@@ -36,9 +81,9 @@ public class HUDManager {
     
     public void toggleCompass(Player player) {
         UUID uuid = player.getUniqueId();
-        boolean current = compassEnabled.getOrDefault(uuid, 
-            plugin.getConfig().getBoolean("hud.compass.default-enabled", true));
+        boolean current = compassEnabled.getOrDefault(uuid, compassDefault);
         compassEnabled.put(uuid, !current);
+        resetFrame(player);
         
         String message = !current ? 
             plugin.getMessage("compass-enabled") : 
@@ -46,108 +91,145 @@ public class HUDManager {
         player.sendMessage(message);
     }
     
+    /**
+     * Forget the last sent frame so the next pass re-evaluates the player instead of waiting out
+     * the idle backoff; a HUD that was switched off entirely is cleared right away
+     */
+    private void resetFrame(Player player) {
+        UUID uuid = player.getUniqueId();
+        if (frames.remove(uuid) != null && !isCoordinatesEnabled(uuid) && !isCompassEnabled(uuid)) {
+            player.sendActionBar("", 0, 1, 0);
+        }
+    }
+    
     public boolean isCoordinatesEnabled(UUID playerId) {
-        return coordinatesEnabled.getOrDefault(playerId, 
-            plugin.getConfig().getBoolean("hud.coordinates.default-enabled", true));
+        return coordinatesEnabled.getOrDefault(playerId, coordinatesDefault);
     }
     
     public boolean isCompassEnabled(UUID playerId) {
-        return compassEnabled.getOrDefault(playerId, 
-            plugin.getConfig().getBoolean("hud.compass.default-enabled", true));
+        return compassEnabled.getOrDefault(playerId, compassDefault);
     }
     
     public void startHUDTask() {
-        int interval = plugin.getConfig().getInt("hud.coordinates.update-interval", 20);
-        
-        hudTaskId = plugin.getServer().getScheduler().scheduleRepeatingTask(new Task() {
-            @Override
-            public void onRun(int currentTick) {
-                updateHUD();
-            }
-        }, interval);
+        if (hudPhase == null) {
+            hudPhase = plugin.getTickEngine().addPlayerPhase("hud", interval, this::updateHUD);
+        }
     }
     
     public void stopHUDTask() {
-        if (hudTaskId != null) {
-            hudTaskId.cancel();
-            hudTaskId = null;
-        }
+        plugin.getTickEngine().remove(hudPhase);
+        hudPhase = null;
     }
     
-    private void updateHUD() {
-        // Cache format strings outside loop
-        String coordFormat = plugin.getConfig().getString("hud.coordinates.format", 
-            "§eX: §f{x} §eY: §f{y} §eZ: §f{z}");
-        
-        for (Player player : plugin.getServer().getOnlinePlayers().values()) {
-            if (player == null || !player.isOnline()) {
+    private void updateHUD(List<Player> shard, int currentTick) {
+        for (Player player : shard) {
+            if (!player.isOnline()) {
                 continue;
             }
             
             UUID playerId = player.getUniqueId();
+            boolean showCoordinates = isCoordinatesEnabled(playerId);
+            boolean showCompass = isCompassEnabled(playerId);
             
-            // Skip if player has both disabled (optimization)
-            if (!isCoordinatesEnabled(playerId) && !isCompassEnabled(playerId)) {
+            // Skip if player has both disabled, clearing a HUD that is still shown
+            if (!showCoordinates && !showCompass) {
+                if (frames.remove(playerId) != null) {
+                    player.sendActionBar("", 0, 1, 0);
+                }
                 continue;
             }
             
-            StringBuilder actionBar = new StringBuilder();
-            
-            // Add coordinates
-            if (isCoordinatesEnabled(playerId)) {
-                String coords = coordFormat
-                    .replace("{x}", String.valueOf((int) player.getX()))
-                    .replace("{y}", String.valueOf((int) player.getY()))
-                    .replace("{z}", String.valueOf((int) player.getZ()));
-                actionBar.append(coords);
+            Frame frame = frames.get(playerId);
+            if (frame == null) {
+                frame = new Frame();
+                frames.put(playerId, frame);
+            } else if (currentTick < frame.nextCheckTick) {
+                continue;  // Idle player, checked less often
             }
             
-            // Add compass
-            if (isCompassEnabled(playerId)) {
-                if (actionBar.length() > 0) {
-                    actionBar.append("  §7|  ");
+            int x = showCoordinates ? player.getFloorX() : 0;
+            int y = showCoordinates ? player.getFloorY() : 0;
+            int z = showCoordinates ? player.getFloorZ() : 0;
+            int direction = showCompass ? directionBucket(player.getYaw()) : -1;
+            boolean changed = !frame.sent || frame.showCoordinates != showCoordinates
+                || frame.x != x || frame.y != y || frame.z != z || frame.direction != direction;
+            
+            if (changed || currentTick - frame.sentTick >= refreshInterval - interval) {
+                if (changed) {
+                    frame.set(showCoordinates, x, y, z, direction);
+                    frame.idleChecks = 0;
                 }
-                actionBar.append(getDirectionText(player));
+                send(player, frame);
+                frame.sentTick = currentTick;
             }
             
-            // Send action bar
-            if (actionBar.length() > 0) {
-                player.sendActionBar(actionBar.toString());
+            // Back off while nothing changes: 1, 2, 4, ... intervals up to the refresh interval
+            if (!changed && frame.idleChecks < 16) {
+                frame.idleChecks++;
             }
+            int delay = Math.min(interval << Math.min(frame.idleChecks, 16), refreshInterval - interval);
+            frame.nextCheckTick = currentTick + Math.max(interval, delay);
         }
     }
     
-    private String getDirectionText(Player player) {
-        double yaw = player.getYaw();
+    private void send(Player player, Frame frame) {
+        StringBuilder actionBar = buffer;
+        actionBar.setLength(0);
         
-        // Normalize yaw to 0-360
-        while (yaw < 0) yaw += 360;
-        while (yaw >= 360) yaw -= 360;
+        // Add coordinates
+        if (frame.showCoordinates) {
+            plugin.getMessages().getFormat("hud.coordinates.format")
+                .appendTo(actionBar, "x", frame.x, "y", frame.y, "z", frame.z);
+        }
         
-        String direction;
-        if (yaw >= 337.5 || yaw < 22.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.south", "§cS");
-        } else if (yaw >= 22.5 && yaw < 67.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.southwest", "§cSW");
-        } else if (yaw >= 67.5 && yaw < 112.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.west", "§cW");
-        } else if (yaw >= 112.5 && yaw < 157.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.northwest", "§cNW");
-        } else if (yaw >= 157.5 && yaw < 202.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.north", "§cN");
-        } else if (yaw >= 202.5 && yaw < 247.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.northeast", "§cNE");
-        } else if (yaw >= 247.5 && yaw < 292.5) {
-            direction = plugin.getConfig().getString("hud.compass.directions.east", "§cE");
-        } else {
-            direction = plugin.getConfig().getString("hud.compass.directions.southeast", "§cSE");
+        // Add compass
+        if (frame.direction >= 0) {
+            if (actionBar.length() > 0) {
+                actionBar.append("  §7|  ");
+            }
+            actionBar.append(directionTexts[frame.direction]);
         }
         
-        return "§eDir: " + direction;
+        // Stay visible until the next refresh
+        player.sendActionBar(actionBar.toString(), 0, refreshInterval + interval, 0);
+    }
+    
+    /**
+     * Compass bucket of a yaw: 0 = south, then clockwise in 45 degree steps
+     */
+    private static int directionBucket(double yaw) {
+        // Normalize yaw to 0-360
+        yaw %= 360;
+        if (yaw < 0) {
+            yaw += 360;
+        }
+        return (int) ((yaw + 22.5) / 45) & 7;
     }
     
     public void removePlayer(UUID playerId) {
         coordinatesEnabled.remove(playerId);
         compassEnabled.remove(playerId);
+        frames.remove(playerId);
+    }
+    
+    private static class Frame {
+        private boolean sent = false;
+        private boolean showCoordinates;
+        private int x;
+        private int y;
+        private int z;
+        private int direction;
+        private int sentTick;
+        private int nextCheckTick;
+        private int idleChecks;
+        
+        void set(boolean showCoordinates, int x, int y, int z, int direction) {
+            this.sent = true;
+            this.showCoordinates = showCoordinates;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.direction = direction;
+        }
     }
 }
@@ -1,112 +1,251 @@
 package com.euphoria.party.manager;
 
 import cn.nukkit.Player;
+import cn.nukkit.utils.ConfigSection;
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.event.PartyDisbandedEvent;
+import com.euphoria.party.event.PartyEventBus;
+import com.euphoria.party.event.PartyUpdatedEvent;
 import com.euphoria.party.model.Party;
 import com.euphoria.party.model.PartyAchievement;
+import com.euphoria.party.model.PartyStat;
 
 import java.util.*;
 
+/**
+ * Unlocks achievements when the stat they watch reaches their requirement.
+ *
+ * Definitions come from the achievements config section (built-in defaults
+ * otherwise) and are indexed by stat, sorted by requirement. For every party
+ * the lowest requirement still locked is kept per stat, so a party change
+ * costs one comparison per watched stat and only a stat that crossed its
+ * next threshold looks at its achievements. Unlock messages and rewards are
+ * collected per party and sent together.
+ */
 public class PartyAchievementManager {
     
     private final EuphoriaPartyPlugin plugin;
     private final Map<String, PartyAchievement> achievements;
+    private final PartyAchievement[][] achievementsByStat;  // Indexed by stat ordinal, ascending requirement
+    private final PartyStat[] watchedStats;
+    private final Map<UUID, double[]> nextThresholds = new HashMap<>();  // Per party, indexed by stat ordinal
+    private final Map<Party, List<PartyAchievement>> pendingUnlocks = new LinkedHashMap<>();
+    private final boolean batchUnlocks;
+    private boolean flushScheduled = false;
     
     public PartyAchievementManager(EuphoriaPartyPlugin plugin) {
         this.plugin = plugin;
-        this.achievements = new HashMap<>();
-        registerAchievements();
+        this.achievements = new LinkedHashMap<>();
+        loadAchievements();
+        
+        // Index definitions by the stat they watch
+        List<PartyStat> watched = new ArrayList<>();
+        this.achievementsByStat = new PartyAchievement[PartyStat.values().length][];
+        for (PartyStat stat : PartyStat.values()) {
+            PartyAchievement[] forStat = achievements.values().stream()
+                .filter(achievement -> achievement.getStat() == stat)
+                .sorted(Comparator.comparingDouble(PartyAchievement::getRequirement))
+                .toArray(PartyAchievement[]::new);
+            achievementsByStat[stat.ordinal()] = forStat;
+            if (forStat.length > 0) {
+                watched.add(stat);
+            }
+        }
+        this.watchedStats = watched.toArray(new PartyStat[0]);
+        this.batchUnlocks = plugin.getPartyConfig().isBatchAchievementChecks();
+        
+        PartyEventBus events = plugin.getPartyManager().getEventBus();
+        events.subscribe(PartyUpdatedEvent.class, event -> evaluate(event.getParty()));
+        events.subscribe(PartyDisbandedEvent.class, event -> {
+            nextThresholds.remove(event.getParty().getId());
+            pendingUnlocks.remove(event.getParty());
+        });
     }
     
-    private void registerAchievements() {
+    private void loadAchievements() {
+        ConfigSection section = plugin.getConfig().getSection("achievements");
+        if (section == null || section.isEmpty()) {
+            registerDefaults();
+            return;
+        }
+        
+        for (String id : section.getKeys(false)) {
+            ConfigSection definition = section.getSection(id);
+            if (definition == null) {
+                continue;
+            }
+            
+            PartyStat stat = PartyStat.fromName(definition.getString("stat", ""));
+            if (stat == null) {
+                plugin.getLogger().warning("Achievement " + id + " has an unknown stat, skipping it");
+                continue;
+            }
+            
+            // "max-members" follows the configured party size
+            double requirement = "max-members".equals(definition.getString("requirement", ""))
+                ? plugin.getPartyConfig().getMaxMembers()
+                : definition.getDouble("requirement", 0);
+            
+            String rewardType = definition.getString("reward-type", "xp");
+            if (!rewardType.equals("xp")) {
+                plugin.getLogger().warning("Achievement " + id + " has an unsupported reward type '" + rewardType + "', it awards nothing");
+            }
+            
+            register(new PartyAchievement(id, definition.getString("name", id), definition.getString("description", ""),
+                stat, requirement, rewardType, definition.getInt("reward-amount", 0)));
+        }
+    }
+    
+    private void registerDefaults() {
         // Member-based achievements
-        achievements.put("party_started", new PartyAchievement(
-            "party_started", "§6Party Started", "§7Create your first party", 1, "xp", 100
+        register(new PartyAchievement(
+            "party_started", "§6Party Started", "§7Create your first party", PartyStat.MEMBERS, 1, "xp", 100
         ));
-        achievements.put("team_player", new PartyAchievement(
-            "team_player", "§6Team Player", "§7Have 5 members in your party", 5, "xp", 250
+        register(new PartyAchievement(
+            "team_player", "§6Team Player", "§7Have 5 members in your party", PartyStat.MEMBERS, 5, "xp", 250
         ));
-        achievements.put("full_house", new PartyAchievement(
-            "full_house", "§6Full House", "§7Fill your party to max capacity", 8, "xp", 500
+        register(new PartyAchievement(
+            "full_house", "§6Full House", "§7Fill your party to max capacity", PartyStat.MEMBERS,
+            plugin.getPartyConfig().getMaxMembers(), "xp", 500
         ));
         
         // Time-based achievements
-        achievements.put("dedicated", new PartyAchievement(
-            "dedicated", "§6Dedicated", "§710 hours of party playtime", 36000000, "xp", 500
+        register(new PartyAchievement(
+            "dedicated", "§6Dedicated", "§710 hours of party playtime", PartyStat.PLAYTIME, 36000000, "xp", 500
         ));
-        achievements.put("veteran", new PartyAchievement(
-            "veteran", "§6Veteran", "§750 hours of party playtime", 180000000, "xp", 2000
+        register(new PartyAchievement(
+            "veteran", "§6Veteran", "§750 hours of party playtime", PartyStat.PLAYTIME, 180000000, "xp", 2000
         ));
         
         // Combat achievements
-        achievements.put("first_blood", new PartyAchievement(
-            "first_blood", "§6First Blood", "§7Get 10 party kills", 10, "xp", 200
+        register(new PartyAchievement(
+            "first_blood", "§6First Blood", "§7Get 10 party kills", PartyStat.KILLS, 10, "xp", 200
         ));
-        achievements.put("slayer", new PartyAchievement(
-            "slayer", "§6Slayer", "§7Get 100 party kills", 100, "xp", 1000
+        register(new PartyAchievement(
+            "slayer", "§6Slayer", "§7Get 100 party kills", PartyStat.KILLS, 100, "xp", 1000
         ));
-        achievements.put("survivor", new PartyAchievement(
-            "survivor", "§6Survivor", "§7Reach 2.0 K/D ratio", 0, "xp", 750
+        register(new PartyAchievement(
+            "survivor", "§6Survivor", "§7Reach 2.0 K/D ratio", PartyStat.KD, 2.0, "xp", 750
         ));
         
         // Daily streak achievements
-        achievements.put("consistent", new PartyAchievement(
-            "consistent", "§6Consistent", "§7Claim rewards for 7 days straight", 7, "xp", 500
+        register(new PartyAchievement(
+            "consistent", "§6Consistent", "§7Claim rewards for 7 days straight", PartyStat.STREAK, 7, "xp", 500
         ));
-        achievements.put("devoted", new PartyAchievement(
-            "devoted", "§6Devoted", "§7Claim rewards for 30 days straight", 30, "xp", 2500
+        register(new PartyAchievement(
+            "devoted", "§6Devoted", "§7Claim rewards for 30 days straight", PartyStat.STREAK, 30, "xp", 2500
         ));
     }
     
+    private void register(PartyAchievement achievement) {
+        achievements.put(achievement.getId(), achievement);
+    }
+    
+    /**
+     * Re-check every achievement of a party from scratch
+     */
     public void checkAchievements(Party party) {
-        // Check member count achievements
-        int memberCount = party.getMemberCount();
-        checkAndUnlock(party, "party_started", memberCount >= 1);
-        checkAndUnlock(party, "team_player", memberCount >= 5);
-        checkAndUnlock(party, "full_house", memberCount >= plugin.getConfig().getInt("party.max-members", 8));
+        nextThresholds.remove(party.getId());
+        evaluate(party);
+    }
+    
+    private void evaluate(Party party) {
+        double[] thresholds = nextThresholds.computeIfAbsent(party.getId(), id -> initialThresholds(party));
         
-        // Check playtime achievements
-        long playTime = party.getTotalPlayTime();
-        checkAndUnlock(party, "dedicated", playTime >= 36000000); // 10 hours
-        checkAndUnlock(party, "veteran", playTime >= 180000000); // 50 hours
+        List<PartyAchievement> unlocked = null;
+        for (PartyStat stat : watchedStats) {
+            int index = stat.ordinal();
+            double value = stat.read(party);
+            if (value < thresholds[index]) {
+                continue;
+            }
+            
+            // Threshold crossed: only this stat's achievements need a look
+            for (PartyAchievement achievement : achievementsByStat[index]) {
+                if (achievement.getRequirement() > value) {
+                    break;
+                }
+                if (!party.hasAchievement(achievement.getId())) {
+                    if (unlocked == null) {
+                        unlocked = new ArrayList<>();
+                    }
+                    unlocked.add(achievement);
+                }
+            }
+            thresholds[index] = lowestLocked(party, stat, value);
+        }
         
-        // Check combat achievements
-        int kills = party.getTotalKills();
-        checkAndUnlock(party, "first_blood", kills >= 10);
-        checkAndUnlock(party, "slayer", kills >= 100);
+        if (unlocked == null) {
+            return;
+        }
         
-        // Check K/D ratio
-        if (party.getTotalDeaths() > 0) {
-            double kd = (double) party.getTotalKills() / party.getTotalDeaths();
-            checkAndUnlock(party, "survivor", kd >= 2.0);
+        // Thresholds are already moved on, so the change events fired here return right away
+        for (PartyAchievement achievement : unlocked) {
+            party.unlockAchievement(achievement.getId());
         }
+        pendingUnlocks.computeIfAbsent(party, key -> new ArrayList<>()).addAll(unlocked);
         
-        // Check daily streak achievements
-        int streak = party.getConsecutiveDays();
-        checkAndUnlock(party, "consistent", streak >= 7);
-        checkAndUnlock(party, "devoted", streak >= 30);
+        if (!batchUnlocks) {
+            flushUnlocks();
+        } else if (!flushScheduled) {
+            // Unlocks from the rest of this tick are announced together
+            flushScheduled = true;
+            plugin.getServer().getScheduler().scheduleDelayedTask(plugin, this::flushUnlocks, 1);
+        }
     }
     
-    private void checkAndUnlock(Party party, String achievementId, boolean condition) {
-        if (condition && !party.hasAchievement(achievementId)) {
-            party.unlockAchievement(achievementId);
-            
-            PartyAchievement achievement = achievements.get(achievementId);
-            if (achievement != null) {
-                // Notify all party members
-                for (UUID memberId : party.getMembers()) {
-                    Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                    if (member != null) {
-                        member.sendMessage("§8[§6Party§8] §eAchievement Unlocked!");
-                        member.sendMessage(achievement.getName() + " §7- " + achievement.getDescription());
-                        member.sendMessage("§7Reward: §e+" + achievement.getRewardAmount() + " XP");
-                        
-                        // Give reward
-                        if (achievement.getRewardType().equals("xp")) {
-                            member.addExperience(achievement.getRewardAmount());
-                        }
-                    }
-                }
+    private double[] initialThresholds(Party party) {
+        double[] thresholds = new double[achievementsByStat.length];
+        Arrays.fill(thresholds, Double.POSITIVE_INFINITY);
+        for (PartyStat stat : watchedStats) {
+            thresholds[stat.ordinal()] = lowestLocked(party, stat, Double.NEGATIVE_INFINITY);
+        }
+        return thresholds;
+    }
+    
+    /**
+     * Lowest requirement above the given value among the party's locked achievements of a stat
+     */
+    private double lowestLocked(Party party, PartyStat stat, double above) {
+        for (PartyAchievement achievement : achievementsByStat[stat.ordinal()]) {
+            if (achievement.getRequirement() > above && !party.hasAchievement(achievement.getId())) {
+                return achievement.getRequirement();
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+    
+    private void flushUnlocks() {
+        flushScheduled = false;
+        for (Map.Entry<Party, List<PartyAchievement>> entry : pendingUnlocks.entrySet()) {
+            announce(entry.getKey(), entry.getValue());
+        }
+        pendingUnlocks.clear();
+    }
+    
+    /**
+     * Send one message per member for all achievements the party just unlocked, and hand out the rewards.
+     * Only xp is awarded; the reward line is left out when nothing is.
+     */
+    private void announce(Party party, List<PartyAchievement> unlocked) {
+        StringBuilder message = new StringBuilder(plugin.getMessages().getPrefix()).append("§e");
+        message.append(unlocked.size() == 1 ? "Achievement Unlocked!" : unlocked.size() + " Achievements Unlocked!");
+        int xp = 0;
+        for (PartyAchievement achievement : unlocked) {
+            message.append("\n").append(achievement.getName()).append(" §7- ").append(achievement.getDescription());
+            if (achievement.getRewardType().equals("xp")) {
+                xp += achievement.getRewardAmount();
+            }
+        }
+        if (xp > 0) {
+            message.append("\n§7Reward: §e+").append(xp).append(" XP");
+        }
+        String text = message.toString();
+        
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            member.sendMessage(text);
+            if (xp > 0) {
+                member.addExperience(xp);
             }
         }
     }
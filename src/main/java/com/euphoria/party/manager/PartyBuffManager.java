@@ -18,7 +18,7 @@ public class PartyBuffManager {
     }
     
     public void startBuffTask() {
-        if (!plugin.getConfig().getBoolean("party.buffs.enabled", false)) {
+        if (!plugin.getPartyConfig().isBuffsEnabled()) {
             return;
         }
         
@@ -1,122 +1,120 @@
 package com.euphoria.party.manager;
 
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.event.PartyDisbandedEvent;
+import com.euphoria.party.event.PartyEventBus;
+import com.euphoria.party.event.PartyUpdatedEvent;
 import com.euphoria.party.model.Party;
+import com.euphoria.party.util.RankIndex;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.ToDoubleFunction;
 
+/**
+ * Party leaderboards, kept as one rank index per metric.
+ *
+ * Each party change re-scores that party in O(log n) per metric, so top lists
+ * and ranks are read straight from the indexes without sorting. The indexes
+ * are built from all parties on first use, once the stored parties are loaded.
+ */
 public class PartyLeaderboardManager {
     
+    private enum Metric {
+        KILLS(party -> party.getTotalKills()),
+        PLAYTIME(party -> party.getTotalPlayTime()),
+        MEMBERS(party -> party.getMemberCount()),
+        // Parties without deaths have no K/D and are not ranked
+        KD(party -> party.getTotalDeaths() > 0 ? (double) party.getTotalKills() / party.getTotalDeaths() : Double.NaN),
+        ACHIEVEMENTS(party -> party.getAchievementCount());
+        
+        private final ToDoubleFunction<Party> score;
+        
+        Metric(ToDoubleFunction<Party> score) {
+            this.score = score;
+        }
+    }
+    
     private final EuphoriaPartyPlugin plugin;
+    private final Map<Metric, RankIndex<Party>> indexes = new EnumMap<>(Metric.class);
+    private boolean indexed = false;
     
     public PartyLeaderboardManager(EuphoriaPartyPlugin plugin) {
         this.plugin = plugin;
+        for (Metric metric : Metric.values()) {
+            indexes.put(metric, new RankIndex<>(Comparator.comparing(Party::getId)));
+        }
+        
+        PartyEventBus events = plugin.getPartyManager().getEventBus();
+        events.subscribe(PartyUpdatedEvent.class, event -> onPartyUpdated(event.getParty()));
+        events.subscribe(PartyDisbandedEvent.class, event -> onPartyRemoved(event.getParty()));
     }
     
     public List<Party> getTopPartiesByKills(int limit) {
-        // Try cache first
-        List<Party> cached = plugin.getPartyManager().getCachedLeaderboard("kills", limit);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Compute and cache
-        List<Party> result = plugin.getPartyManager().getAllParties().stream()
-            .sorted((p1, p2) -> Integer.compare(p2.getTotalKills(), p1.getTotalKills()))
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        plugin.getPartyManager().cacheLeaderboard("kills", limit, result);
-        return result;
+        return top(Metric.KILLS, limit);
     }
     
     public List<Party> getTopPartiesByPlaytime(int limit) {
-        // Try cache first
-        List<Party> cached = plugin.getPartyManager().getCachedLeaderboard("playtime", limit);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Compute and cache
-        List<Party> result = plugin.getPartyManager().getAllParties().stream()
-            .sorted((p1, p2) -> Long.compare(p2.getTotalPlayTime(), p1.getTotalPlayTime()))
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        plugin.getPartyManager().cacheLeaderboard("playtime", limit, result);
-        return result;
+        return top(Metric.PLAYTIME, limit);
     }
     
     public List<Party> getTopPartiesByMembers(int limit) {
-        // Try cache first
-        List<Party> cached = plugin.getPartyManager().getCachedLeaderboard("members", limit);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Compute and cache
-        List<Party> result = plugin.getPartyManager().getAllParties().stream()
-            .sorted((p1, p2) -> Integer.compare(p2.getMemberCount(), p1.getMemberCount()))
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        plugin.getPartyManager().cacheLeaderboard("members", limit, result);
-        return result;
+        return top(Metric.MEMBERS, limit);
     }
     
     public List<Party> getTopPartiesByKD(int limit) {
-        // Try cache first
-        List<Party> cached = plugin.getPartyManager().getCachedLeaderboard("kd", limit);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Compute and cache
-        List<Party> result = plugin.getPartyManager().getAllParties().stream()
-            .filter(p -> p.getTotalDeaths() > 0)
-            .sorted((p1, p2) -> {
-                double kd1 = (double) p1.getTotalKills() / p1.getTotalDeaths();
-                double kd2 = (double) p2.getTotalKills() / p2.getTotalDeaths();
-                return Double.compare(kd2, kd1);
-            })
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        plugin.getPartyManager().cacheLeaderboard("kd", limit, result);
-        return result;
+        return top(Metric.KD, limit);
     }
     
     public List<Party> getTopPartiesByAchievements(int limit) {
-        // Try cache first
-        List<Party> cached = plugin.getPartyManager().getCachedLeaderboard("achievements", limit);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Compute and cache
-        List<Party> result = plugin.getPartyManager().getAllParties().stream()
-            .sorted((p1, p2) -> Integer.compare(p2.getAchievementCount(), p1.getAchievementCount()))
-            .limit(limit)
-            .collect(Collectors.toList());
-        
-        plugin.getPartyManager().cacheLeaderboard("achievements", limit, result);
-        return result;
+        return top(Metric.ACHIEVEMENTS, limit);
     }
     
     public int getPartyRankByKills(Party party) {
-        List<Party> sorted = plugin.getPartyManager().getAllParties().stream()
-            .sorted((p1, p2) -> Integer.compare(p2.getTotalKills(), p1.getTotalKills()))
-            .collect(Collectors.toList());
-        
-        return sorted.indexOf(party) + 1;
+        return rank(Metric.KILLS, party);
     }
     
     public int getPartyRankByPlaytime(Party party) {
-        List<Party> sorted = plugin.getPartyManager().getAllParties().stream()
-            .sorted((p1, p2) -> Long.compare(p2.getTotalPlayTime(), p1.getTotalPlayTime()))
-            .collect(Collectors.toList());
-        
-        return sorted.indexOf(party) + 1;
+        return rank(Metric.PLAYTIME, party);
+    }
+    
+    private synchronized List<Party> top(Metric metric, int limit) {
+        ensureIndexed();
+        return indexes.get(metric).top(limit);
+    }
+    
+    private synchronized int rank(Metric metric, Party party) {
+        ensureIndexed();
+        return indexes.get(metric).rank(party);
+    }
+    
+    private synchronized void onPartyUpdated(Party party) {
+        // Changes made before the first build are picked up by the build itself
+        if (indexed) {
+            score(party);
+        }
+    }
+    
+    private synchronized void onPartyRemoved(Party party) {
+        if (indexed) {
+            for (RankIndex<Party> index : indexes.values()) {
+                index.remove(party);
+            }
+        }
+    }
+    
+    private void ensureIndexed() {
+        if (indexed || !plugin.getPartyManager().isReady()) {
+            return;
+        }
+        for (Party party : plugin.getPartyManager().getAllParties()) {
+            score(party);
+        }
+        indexed = true;
+    }
+    
+    private void score(Party party) {
+        for (Map.Entry<Metric, RankIndex<Party>> entry : indexes.entrySet()) {
+            entry.getValue().update(party, entry.getKey().score.applyAsDouble(party));
+        }
     }
 }
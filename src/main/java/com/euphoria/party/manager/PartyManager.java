@@ -2,62 +2,113 @@ package com.euphoria.party.manager;
 
 import cn.nukkit.Player;
 import cn.nukkit.level.Location;
-import cn.nukkit.level.particle.HeartParticle;
-import cn.nukkit.scheduler.Task;
-import cn.nukkit.scheduler.TaskHandler;
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.event.MemberJoinedEvent;
+import com.euphoria.party.event.MemberLeftEvent;
+import com.euphoria.party.event.PartyCreatedEvent;
+import com.euphoria.party.event.PartyDisbandedEvent;
+import com.euphoria.party.event.PartyEventBus;
+import com.euphoria.party.event.PartyUpdatedEvent;
 import com.euphoria.party.model.Party;
+import com.euphoria.party.storage.BinaryPartyStorage;
+import com.euphoria.party.storage.H2PartyStorage;
+import com.euphoria.party.storage.JsonPartyStorage;
+import com.euphoria.party.storage.PartyJournal;
 import com.euphoria.party.storage.PartyStorage;
 import com.euphoria.party.util.Cache;
+import com.euphoria.party.util.MovementTracker;
+import com.euphoria.party.util.PartyConfig;
+import com.euphoria.party.util.PlayerRegistry;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PartyManager {
     
     private final EuphoriaPartyPlugin plugin;
     private final Map<UUID, Party> parties;
-    private final Map<UUID, UUID> playerToParty;
-    private final Map<UUID, UUID> playerInvites;  // Player UUID -> Party UUID for quick invite lookups
-    private final Map<UUID, Long> lastCommandUse;  // Command cooldown tracking
-    private final Map<UUID, Long> lastTeleport;  // Teleport cooldown tracking
-    private final Map<UUID, Location> lastPlayerLocations;  // For optimized marker updates
+    private final PlayerRegistry players;  // Per-player party, pending invite and cooldowns
+    private final MovementTracker movementTracker;  // Last rendered positions for optimized marker updates
     private final PartyStorage storage;
-    private final Cache<UUID, Party> partyCache;  // Cache for party lookups
-    private final Cache<String, List<Party>> leaderboardCache;  // Cache for leaderboard queries
-    private cn.nukkit.scheduler.TaskHandler markerTaskId = null;
-    private cn.nukkit.scheduler.TaskHandler distanceCheckTaskId = null;
-    private cn.nukkit.scheduler.TaskHandler playTimeTaskId = null;
-    private cn.nukkit.scheduler.TaskHandler cleanupTaskId = null;
-    private long inviteExpirationTime;
-    private int commandCooldown;
-    private boolean optimizeMarkers;
+    private final PartyJournal journal;  // Write-ahead log between snapshot saves, null if disabled
+    private final Set<UUID> dirtyParties = ConcurrentHashMap.newKeySet();  // Modified since the last save
+    private final Set<UUID> removedParties = ConcurrentHashMap.newKeySet();  // Disbanded since the last save
+    private final Queue<PendingSave> pendingSaves = new ConcurrentLinkedQueue<>();  // Async saves not finished yet
+    private final Party.ChangeListener changeListener = this::onPartyChanged;
+    private Party membershipChange = null;  // Party joining a member; its update event waits for the join event
+    private final AtomicLong totalSavedParties = new AtomicLong();
+    private volatile int lastSavedParties = 0;
+    private final PartyEventBus eventBus;
+    private final PresenceIndex presence;
+    private final Cache<UUID, Party> partyCache;  // Cache for party lookups, invalidated by membership events
+    private final PartyMarkerRenderer markerRenderer = new PartyMarkerRenderer();
+    private final ProximityPipeline proximity;  // Marker and distance math off the main thread
+    private final ProximitySnapshot.Builder markerCapture = new ProximitySnapshot.Builder();
+    private final ProximitySnapshot.Builder distanceCapture = new ProximitySnapshot.Builder();
+    private ProximityPipeline.Job<ProximityPipeline.IntPairs> markerJob = null;  // Computing, not yet applied
+    private ProximityPipeline.Job<ProximityPipeline.IntPairs> distanceJob = null;
+    private int[] lastMarkerRefreshTicks = new int[0];  // Per marker shard
+    private PartyTickEngine.Phase markerPhase = null;
+    private PartyTickEngine.Phase distanceCheckPhase = null;
+    private PartyTickEngine.Phase playTimePhase = null;
+    private PartyTickEngine.Phase cleanupPhase = null;
+    private PartyTickEngine.Phase journalPhase = null;
+    private final boolean cachePartyLookups;
+    private volatile PartyConfig config;
     private long lastAchievementCheck = 0;
+    private volatile boolean ready = false;  // Stored parties have been loaded
     
     public PartyManager(EuphoriaPartyPlugin plugin) {
         this.plugin = plugin;
+        this.config = plugin.getPartyConfig();
         this.parties = new ConcurrentHashMap<>();
-        this.playerToParty = new ConcurrentHashMap<>();
-        this.playerInvites = new ConcurrentHashMap<>();
-        this.lastCommandUse = new ConcurrentHashMap<>();
-        this.lastTeleport = new ConcurrentHashMap<>();
-        this.lastPlayerLocations = new ConcurrentHashMap<>();
-        this.storage = new PartyStorage(plugin.getDataFolder());
-        
-        // Initialize caches (30 second TTL for party cache, 5 second for leaderboards)
-        this.partyCache = new Cache<>(30000);
-        this.leaderboardCache = new Cache<>(5000);
-        
-        // Load config values
-        this.inviteExpirationTime = plugin.getConfig().getLong("party.invite-expiration", 300000);
-        this.commandCooldown = plugin.getConfig().getInt("security.command-cooldown", 3);
-        this.optimizeMarkers = plugin.getConfig().getBoolean("performance.optimize-markers", true);
+        this.players = new PlayerRegistry();
+        this.movementTracker = new MovementTracker();
+        this.proximity = new ProximityPipeline(config.getProximityThreads());
+        this.storage = createStorage();
+        this.journal = config.isJournal() ? new PartyJournal(plugin.getDataFolder(), plugin.getLogger()) : null;
+        
+        // Initialize party cache (30 second TTL by default)
+        this.partyCache = new Cache<>(config.getCacheTtl(), config.getMaxCacheSize());
+        this.cachePartyLookups = config.isCachePartyLookups();
+        
+        // Keep the caches in step with membership and party changes
+        this.eventBus = new PartyEventBus(plugin);
+        eventBus.subscribe(MemberJoinedEvent.class, event -> partyCache.invalidate(event.getPlayerId()));
+        eventBus.subscribe(MemberLeftEvent.class, event -> partyCache.invalidate(event.getPlayerId()));
+        eventBus.subscribe(PartyDisbandedEvent.class, event -> event.getParty().forEachMember(partyCache::invalidate));
+        this.presence = new PresenceIndex(eventBus, playerId -> {
+            UUID partyId = players.getParty(playerId);
+            return partyId != null ? parties.get(partyId) : null;
+        });
+        presence.rebuild(plugin.getServer().getOnlinePlayers().values());
         
         // Load saved parties
         loadAllParties();
         
         // Start memory cleanup task
         startCleanupTask();
+        startJournalTask();
+    }
+    
+    /**
+     * Create the storage backend selected by storage.type
+     */
+    private PartyStorage createStorage() {
+        String type = config.getStorageType();
+        if (type.equalsIgnoreCase("h2")) {
+            plugin.getLogger().info("Using embedded H2 database for party storage");
+            return new H2PartyStorage(plugin.getDataFolder(), plugin.getLogger());
+        }
+        if (type.equalsIgnoreCase("binary")) {
+            plugin.getLogger().info("Using binary snapshot for party storage");
+            return new BinaryPartyStorage(plugin.getDataFolder());
+        }
+        return new JsonPartyStorage(plugin.getDataFolder());
     }
     
     public Party createParty(Player leader) {
@@ -70,13 +121,14 @@ public class PartyManager {
         }
         
         Party party = new Party(leader.getUniqueId());
+        party.setChangeListener(changeListener);
         parties.put(party.getId(), party);
-        playerToParty.put(leader.getUniqueId(), party.getId());
+        players.setParty(leader.getUniqueId(), party.getId());
+        eventBus.publish(new PartyCreatedEvent(party));
+        eventBus.publish(new MemberJoinedEvent(party, leader.getUniqueId()));
         
-        // Start marker task if this is the first party
-        if (parties.size() == 1 && markerTaskId == null) {
-            startMarkerTask();
-        }
+        // Published last so achievement checks already see the leader as an online member
+        onPartyChanged(party);
         
         return party;
     }
@@ -87,64 +139,62 @@ public class PartyManager {
      * @return true if on cooldown
      */
     public boolean isOnCooldown(UUID playerId) {
-        Long lastUse = lastCommandUse.get(playerId);
-        if (lastUse == null) {
+        long lastUse = players.getLastCommandUse(playerId);
+        if (lastUse == 0L) {
             return false;
         }
         long elapsed = (System.currentTimeMillis() - lastUse) / 1000;
-        return elapsed < commandCooldown;
+        return elapsed < config.getCommandCooldown();
     }
     
     /**
      * Get remaining cooldown time in seconds
      */
     public int getRemainingCooldown(UUID playerId) {
-        Long lastUse = lastCommandUse.get(playerId);
-        if (lastUse == null) {
+        long lastUse = players.getLastCommandUse(playerId);
+        if (lastUse == 0L) {
             return 0;
         }
         long elapsed = (System.currentTimeMillis() - lastUse) / 1000;
-        return Math.max(0, commandCooldown - (int)elapsed);
+        return Math.max(0, config.getCommandCooldown() - (int)elapsed);
     }
     
     /**
      * Update last command use time
      */
     public void updateCooldown(UUID playerId) {
-        lastCommandUse.put(playerId, System.currentTimeMillis());
+        players.setLastCommandUse(playerId, System.currentTimeMillis());
     }
     
     /**
      * Check if player is on teleport cooldown
      */
     public boolean isOnTeleportCooldown(UUID playerId) {
-        Long lastUse = lastTeleport.get(playerId);
-        if (lastUse == null) {
+        long lastUse = players.getLastTeleport(playerId);
+        if (lastUse == 0L) {
             return false;
         }
-        int cooldown = plugin.getConfig().getInt("security.teleport-cooldown", 30);
         long elapsed = (System.currentTimeMillis() - lastUse) / 1000;
-        return elapsed < cooldown;
+        return elapsed < config.getTeleportCooldown();
     }
     
     /**
      * Get remaining teleport cooldown time in seconds
      */
     public int getRemainingTeleportCooldown(UUID playerId) {
-        Long lastUse = lastTeleport.get(playerId);
-        if (lastUse == null) {
+        long lastUse = players.getLastTeleport(playerId);
+        if (lastUse == 0L) {
             return 0;
         }
-        int cooldown = plugin.getConfig().getInt("security.teleport-cooldown", 30);
         long elapsed = (System.currentTimeMillis() - lastUse) / 1000;
-        return Math.max(0, cooldown - (int)elapsed);
+        return Math.max(0, config.getTeleportCooldown() - (int)elapsed);
     }
     
     /**
      * Update last teleport time
      */
     public void updateTeleportCooldown(UUID playerId) {
-        lastTeleport.put(playerId, System.currentTimeMillis());
+        players.setLastTeleport(playerId, System.currentTimeMillis());
     }
     
     public boolean disbandParty(UUID partyId) {
@@ -154,19 +204,19 @@ public class PartyManager {
         }
         
         // Remove all members from tracking
-        for (UUID memberId : party.getMembers()) {
-            playerToParty.remove(memberId);
-            lastPlayerLocations.remove(memberId);  // Clear location data
-            partyCache.invalidate(memberId);  // Clear cache
+        for (UUID memberId : party.getMembersView()) {
+            players.removeParty(memberId);
+            movementTracker.remove(memberId);  // Clear location data
         }
         
         parties.remove(partyId);
-        leaderboardCache.clear();  // Clear leaderboard cache
-        
-        // Stop marker task if no parties remain
-        if (parties.isEmpty() && markerTaskId != null) {
-            stopMarkerTask();
+        party.setChangeListener(null);
+        dirtyParties.remove(partyId);
+        removedParties.add(partyId);
+        if (journal != null) {
+            journal.recordDelete(partyId);
         }
+        eventBus.publish(new PartyDisbandedEvent(party));
         
         return true;
     }
@@ -177,7 +227,7 @@ public class PartyManager {
         }
         
         // Clean expired invites first
-        party.cleanExpiredInvites(inviteExpirationTime);
+        party.cleanExpiredInvites(config.getInviteExpiration());
         
         // Check if already invited
         if (party.hasInvite(playerId)) {
@@ -185,13 +235,12 @@ public class PartyManager {
         }
         
         // Check max invites limit
-        int maxInvites = plugin.getConfig().getInt("party.max-pending-invites", 10);
-        if (party.getInvites().size() >= maxInvites) {
+        if (party.getInviteCount() >= config.getMaxPendingInvites()) {
             return;  // Too many pending invites
         }
         
         party.invitePlayer(playerId);
-        playerInvites.put(playerId, party.getId());
+        players.setInvite(playerId, party.getId());
     }
     
     public boolean acceptInvite(Player player, Party party) {
@@ -204,42 +253,38 @@ public class PartyManager {
         }
         
         // Check if invite expired
-        if (party.isInviteExpired(player.getUniqueId(), inviteExpirationTime)) {
+        if (party.isInviteExpired(player.getUniqueId(), config.getInviteExpiration())) {
             party.removeInvite(player.getUniqueId());
-            playerInvites.remove(player.getUniqueId());
+            players.removeInvite(player.getUniqueId());
             player.sendMessage(plugin.getMessage("invite-expired"));
             return false;
         }
         
-        int maxMembers = plugin.getConfig().getInt("party.max-members", 8);
-        if (party.getMemberCount() >= maxMembers) {
+        if (party.getMemberCount() >= config.getMaxMembers()) {
             return false;
         }
         
-        party.addMember(player.getUniqueId());
-        playerToParty.put(player.getUniqueId(), party.getId());
-        playerInvites.remove(player.getUniqueId());
+        joinMember(party, player.getUniqueId());
         
         return true;
     }
     
     public void leaveParty(UUID playerId) {
-        UUID partyId = playerToParty.get(playerId);
+        UUID partyId = players.getParty(playerId);
         if (partyId == null) {
             return;
         }
         
         Party party = parties.get(partyId);
         if (party == null) {
-            playerToParty.remove(playerId);
+            players.removeParty(playerId);
             partyCache.invalidate(playerId);
             return;
         }
         
         party.removeMember(playerId);
-        playerToParty.remove(playerId);
-        partyCache.invalidate(playerId);
-        leaderboardCache.clear();
+        players.removeParty(playerId);
+        eventBus.publish(new MemberLeftEvent(party, playerId, MemberLeftEvent.Reason.LEFT));
         
         // If party is empty after removal, disband
         if (party.getMemberCount() == 0) {
@@ -252,64 +297,61 @@ public class PartyManager {
             UUID newLeader = null;
             
             // Find first online member to promote
-            for (UUID memberId : party.getMembers()) {
-                Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (member != null && member.isOnline()) {
-                    newLeader = memberId;
-                    break;
-                }
+            List<Player> online = presence.getOnlineMembers(party);
+            if (!online.isEmpty()) {
+                newLeader = online.get(0).getUniqueId();
             }
             
             // If no online member, pick first member
             if (newLeader == null) {
-                newLeader = party.getMembers().iterator().next();
+                newLeader = party.getMembersView().iterator().next();
             }
             
             party.transferLeadership(newLeader);
             
             // Notify all members about leadership change
-            Player newLeaderPlayer = plugin.getServer().getPlayer(newLeader).orElse(null);
+            Player newLeaderPlayer = presence.getPlayer(newLeader);
             String newLeaderName = newLeaderPlayer != null ? newLeaderPlayer.getName() : "Unknown";
-            
-            for (UUID memberId : party.getMembers()) {
-                Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (member != null) {
-                    member.sendMessage(plugin.getMessage("leader-transferred")
-                        .replace("{player}", newLeaderName));
-                }
-            }
+            broadcastToParty(party, plugin.getMessages().get("leader-transferred").render("player", newLeaderName));
         }
     }
     
     public void kickPlayer(Party party, UUID playerId) {
         party.removeMember(playerId);
-        playerToParty.remove(playerId);
+        players.removeParty(playerId);
+        eventBus.publish(new MemberLeftEvent(party, playerId, MemberLeftEvent.Reason.KICKED));
         
         if (party.getMemberCount() == 0) {
             disbandParty(party.getId());
         }
     }
     
+    /**
+     * Ban a player from a party, removing them if they are a member
+     */
+    public void banPlayer(Party party, UUID playerId) {
+        boolean wasMember = party.isMember(playerId);
+        party.banPlayer(playerId);
+        if (wasMember) {
+            players.removeParty(playerId);
+            eventBus.publish(new MemberLeftEvent(party, playerId, MemberLeftEvent.Reason.BANNED));
+        }
+    }
+    
     public Party getParty(UUID partyId) {
         return parties.get(partyId);
     }
     
     public Party getPlayerParty(UUID playerId) {
-        // Check cache first
-        Party cached = partyCache.get(playerId);
-        if (cached != null) {
-            return cached;
-        }
-        
-        // Lookup and cache
-        UUID partyId = playerToParty.get(playerId);
-        Party party = partyId != null ? parties.get(partyId) : null;
-        
-        if (party != null) {
-            partyCache.put(playerId, party);
+        if (!cachePartyLookups) {
+            return lookupPlayerParty(playerId);
         }
-        
-        return party;
+        return partyCache.get(playerId, this::lookupPlayerParty);
+    }
+    
+    private Party lookupPlayerParty(UUID playerId) {
+        UUID partyId = players.getParty(playerId);
+        return partyId != null ? parties.get(partyId) : null;
     }
     
     public Collection<Party> getAllParties() {
@@ -317,14 +359,14 @@ public class PartyManager {
     }
     
     public boolean isInParty(UUID playerId) {
-        return playerToParty.containsKey(playerId);
+        return players.hasParty(playerId);
     }
     
     /**
      * Get party that has invited this player (efficient O(1) lookup)
      */
     public Party getPendingInvite(UUID playerId) {
-        UUID partyId = playerInvites.get(playerId);
+        UUID partyId = players.getInvite(playerId);
         return partyId != null ? parties.get(partyId) : null;
     }
     
@@ -333,106 +375,165 @@ public class PartyManager {
     }
     
     public void startMarkerTask() {
-        int interval = plugin.getConfig().getInt("party.marker-update-interval", 10);
-        
-        markerTaskId = plugin.getServer().getScheduler().scheduleRepeatingTask(new Task() {
-            @Override
-            public void onRun(int currentTick) {
-                updatePartyMarkers();
-            }
-        }, interval);
+        if (markerPhase == null) {
+            markerPhase = plugin.getTickEngine().addPartyPhase("markers", config.getMarkerUpdateInterval(), this::updatePartyMarkers);
+        }
     }
     
     public void stopMarkerTask() {
-        if (markerTaskId != null) {
-            markerTaskId.cancel();
-            markerTaskId = null;
+        plugin.getTickEngine().remove(markerPhase);
+        markerPhase = null;
+        if (markerJob != null) {
+            markerJob.cancel();
+            markerJob = null;
         }
+        markerRenderer.clear();
     }
     
-    private void updatePartyMarkers() {
-        double maxDistance = plugin.getConfig().getDouble("party.marker-distance", 200.0);
-        int particleCount = plugin.getConfig().getInt("party.marker-particle-count", 3);
+    /**
+     * Render the markers of the parties due this tick; each party comes up once per marker interval.
+     *
+     * Positions are captured here on the main thread and the proximity math runs on the
+     * workers; the markers of a capture are sent in one batch on a later run, before the next
+     * capture. While the workers are busy no new parties are taken, so they stay queued.
+     */
+    private void updatePartyMarkers(PartyTickEngine.PartyCursor parties, int currentTick) {
+        if (markerJob != null) {
+            if (!markerJob.isDone()) {
+                return;
+            }
+            applyMarkers(markerJob);
+            markerJob = null;
+        }
+        
+        PartyConfig config = this.config;
+        int period = markerPhase.getPeriod();
         
-        // Pre-cache online players to avoid repeated lookups
-        Map<UUID, Player> onlinePlayers = new HashMap<>();
-        for (Player p : plugin.getServer().getOnlinePlayers().values()) {
-            onlinePlayers.put(p.getUniqueId(), p);
+        // Unchanged markers are still re-sent periodically so they don't fade out. The refresh
+        // window is kept per shard and follows the tick a party was due on, not when it ran
+        if (lastMarkerRefreshTicks.length != period) {
+            lastMarkerRefreshTicks = new int[period];
         }
+        boolean optimize = config.isOptimizeMarkers();
+        int refreshInterval = config.getMarkerRefreshInterval();
+        double thresholdSquared = config.getMarkerMoveThreshold() * config.getMarkerMoveThreshold();
         
-        for (Party party : parties.values()) {
-            Set<UUID> members = party.getMembers();
-            
-            // Skip parties with no online members
-            boolean hasOnlineMembers = false;
-            for (UUID memberId : members) {
-                if (onlinePlayers.containsKey(memberId)) {
-                    hasOnlineMembers = true;
-                    break;
-                }
-            }
-            if (!hasOnlineMembers) {
-                continue;
+        ProximitySnapshot.Builder capture = markerCapture.reset();
+        Party party;
+        while ((party = parties.next()) != null) {
+            int dueTick = parties.getDueTick();
+            int slot = Math.floorMod(dueTick, period);
+            if (dueTick - lastMarkerRefreshTicks[slot] >= refreshInterval) {
+                lastMarkerRefreshTicks[slot] = dueTick;
             }
-            
-            for (UUID memberId : members) {
-                Player player = onlinePlayers.get(memberId);
-                if (player == null) {
+            capture.beginParty(party, !optimize || lastMarkerRefreshTicks[slot] == dueTick);
+            for (Player player : presence.getOnlineMembers(party)) {
+                if (player.getLevel() == null) {
                     continue;
                 }
-                
-                // Performance optimization: Skip if player hasn't moved much
-                if (optimizeMarkers) {
-                    Location lastLoc = lastPlayerLocations.get(memberId);
-                    Location currentLoc = player.getLocation();
-                    if (lastLoc != null && lastLoc.distance(currentLoc) < 1.0) {
-                        continue;  // Player hasn't moved significantly
-                    }
-                    lastPlayerLocations.put(memberId, currentLoc.clone());
-                }
-                
-                // Batch collect particles to send
-                java.util.List<HeartParticle> particlesToSend = new java.util.ArrayList<>();
-                
-                // Show markers for other party members
-                for (UUID otherMemberId : members) {
-                    if (memberId.equals(otherMemberId)) {
-                        continue;
-                    }
-                    
-                    Player otherPlayer = onlinePlayers.get(otherMemberId);
-                    if (otherPlayer == null) {
-                        continue;
-                    }
-                    
-                    // Check if in same level
-                    if (!player.getLevel().equals(otherPlayer.getLevel())) {
-                        continue;
-                    }
-                    
-                    // Check distance (use squared distance to avoid sqrt)
-                    double dx = player.x - otherPlayer.x;
-                    double dy = player.y - otherPlayer.y;
-                    double dz = player.z - otherPlayer.z;
-                    double distanceSquared = dx * dx + dy * dy + dz * dz;
-                    
-                    if (distanceSquared > maxDistance * maxDistance) {
-                        continue;
+                // Mark the player dirty once it crosses the move threshold
+                boolean moved = movementTracker.update(player.getUniqueId(), player.getLevel(),
+                    player.x, player.y, player.z, thresholdSquared);
+                capture.addMember(player, player.getLevel(), false, moved);
+            }
+            capture.endParty();
+        }
+        
+        if (!capture.isEmpty()) {
+            double maxDistance = config.getMarkerDistance();
+            markerJob = proximity.submit(capture.build(),
+                (snapshot, from, to) -> proximity.markerTargets(snapshot, from, to, maxDistance));
+            if (markerJob.isDone()) {
+                applyMarkers(markerJob);
+                markerJob = null;
+            }
+        }
+        markerPhase.setPending(markerJob != null);
+    }
+    
+    /**
+     * Send the markers computed for a capture, grouped per viewer
+     */
+    private void applyMarkers(ProximityPipeline.Job<ProximityPipeline.IntPairs> job) {
+        List<ProximityPipeline.IntPairs> results;
+        try {
+            results = job.getResults();
+        } catch (RuntimeException e) {
+            plugin.getLogger().error("Error computing party markers", e);
+            return;
+        }
+        
+        ProximitySnapshot snapshot = job.getSnapshot();
+        markerRenderer.beginTick(config.getMarkerParticleCount());
+        for (ProximityPipeline.IntPairs pairs : results) {
+            Player viewer = null;
+            int viewerEntry = -1;
+            for (int i = 0; i < pairs.size(); i++) {
+                if (pairs.first(i) != viewerEntry) {
+                    // Send all of the previous viewer's markers in one batch
+                    if (viewer != null) {
+                        markerRenderer.flush(viewer);
                     }
-                    
-                    // Create particles at location above other player
-                    Location particleLocation = otherPlayer.getLocation().add(0, 2.5, 0);
-                    for (int i = 0; i < particleCount; i++) {
-                        particlesToSend.add(new HeartParticle(particleLocation));
+                    viewerEntry = pairs.first(i);
+                    viewer = snapshot.getPlayer(viewerEntry);
+                    if (!viewer.isOnline()) {
+                        viewer = null;
                     }
                 }
-                
-                // Send all particles in batch
-                for (HeartParticle particle : particlesToSend) {
-                    player.getLevel().addParticle(particle, player);
+                Player target = snapshot.getPlayer(pairs.second(i));
+                if (viewer != null && target.isOnline()) {
+                    markerRenderer.addMarker(target);
                 }
             }
+            if (viewer != null) {
+                markerRenderer.flush(viewer);
+            }
         }
+        
+        // Other shards' targets come up again within one interval; keep their packets until then
+        markerRenderer.endTick(markerPhase != null ? markerPhase.getPeriod() : 1);
+    }
+    
+    /**
+     * Save handed to the async scheduler; runs exactly once, on whichever thread gets to it first
+     */
+    private class PendingSave implements Runnable {
+        private final Map<UUID, Party> snapshot;
+        private final List<Party> changed;
+        private final List<UUID> removed;
+        private final long journalSegment;
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        
+        private PendingSave(Map<UUID, Party> snapshot, List<Party> changed, List<UUID> removed, long journalSegment) {
+            this.snapshot = snapshot;
+            this.changed = changed;
+            this.removed = removed;
+            this.journalSegment = journalSegment;
+        }
+        
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                saveChanges(snapshot, changed, removed, journalSegment);
+            } finally {
+                pendingSaves.remove(this);
+                done.complete(null);
+            }
+        }
+    }
+    
+    /**
+     * Result of the background part of loading, handed to the main thread
+     */
+    private static class LoadedParties {
+        private Map<UUID, Party> parties = Collections.emptyMap();
+        private Set<UUID> replayed = Collections.emptySet();
+        private final Map<UUID, UUID> playerIndex = new ConcurrentHashMap<>();
+        private final Map<UUID, PartyStorage.LocationData> homes = new ConcurrentHashMap<>();
     }
     
     public void saveAllParties() {
@@ -440,58 +541,269 @@ public class PartyManager {
     }
     
     /**
-     * Save all parties with option to force synchronous save
+     * Save parties changed since the last save, with option to force synchronous save
      * @param forceSync If true, saves synchronously even if async-save is enabled
      */
     public void saveAllParties(boolean forceSync) {
-        plugin.getLogger().info("Saving " + parties.size() + " parties...");
+        if (!ready || !hasUnsavedChanges()) {
+            return;
+        }
+        
+        // Drain the dirty sets; anything changed after this point is picked up by the next save
+        List<Party> changed = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        for (Iterator<UUID> iterator = dirtyParties.iterator(); iterator.hasNext(); ) {
+            UUID partyId = iterator.next();
+            iterator.remove();
+            Party party = parties.get(partyId);
+            if (party != null) {
+                changed.add(party);
+            }
+        }
+        for (Iterator<UUID> iterator = removedParties.iterator(); iterator.hasNext(); ) {
+            removed.add(iterator.next());
+            iterator.remove();
+        }
+        
+        // Everything journaled so far is covered by this save; later changes go to a new segment
+        if (journal != null) {
+            journal.flush(parties);
+        }
+        long journalSegment = journal != null ? journal.rotate() : -1;
         
-        boolean async = plugin.getConfig().getBoolean("performance.async-save", true) && !forceSync;
+        boolean async = config.isAsyncSave() && !forceSync;
         
         // Check if plugin is enabled before scheduling async tasks
         if (async && plugin.isEnabled()) {
             // Create a snapshot of current party data to avoid concurrent modification
-            Map<UUID, Party> partySnapshot = new HashMap<>(parties);
+            PendingSave save = new PendingSave(new HashMap<>(parties), changed, removed, journalSegment);
+            pendingSaves.add(save);
             try {
-                plugin.getServer().getScheduler().scheduleTask(plugin, () -> {
-                    storage.saveParties(partySnapshot);
-                }, true); // true = async
+                plugin.getServer().getScheduler().scheduleTask(plugin, save, true); // true = async
             } catch (Exception e) {
                 // If async scheduling fails, fall back to sync
                 plugin.getLogger().warning("Async save failed, falling back to synchronous save");
-                storage.saveParties(parties);
+                save.run();
             }
         } else {
             // Synchronous save
-            storage.saveParties(parties);
+            saveChanges(parties, changed, removed, journalSegment);
+        }
+    }
+    
+    /**
+     * Finish every async save that is still queued or running. A queued save
+     * is run on the calling thread, since the scheduler may drop it once the
+     * plugin is disabled; a running one is waited for.
+     */
+    public void awaitPendingSaves() {
+        PendingSave save;
+        while ((save = pendingSaves.peek()) != null) {
+            save.run();
+            save.done.join();
+        }
+    }
+    
+    private void saveChanges(Map<UUID, Party> snapshot, List<Party> changed, List<UUID> removed, long journalSegment) {
+        if (!storage.saveChanges(snapshot, changed, removed)) {
+            // Keep the changes pending so the next save retries them
+            for (Party party : changed) {
+                dirtyParties.add(party.getId());
+            }
+            for (UUID partyId : removed) {
+                if (!parties.containsKey(partyId)) {
+                    removedParties.add(partyId);
+                }
+            }
+            return;
+        }
+        
+        if (journal != null) {
+            journal.deleteThrough(journalSegment);
         }
+        
+        lastSavedParties = changed.size();
+        totalSavedParties.addAndGet(changed.size());
+        plugin.getLogger().info("Saved " + changed.size() + " changed parties (" + removed.size() + " removed, " + snapshot.size() + " total)");
+    }
+    
+    /**
+     * Check if any party was created, modified or disbanded since the last save
+     */
+    public boolean hasUnsavedChanges() {
+        return !dirtyParties.isEmpty() || !removedParties.isEmpty();
+    }
+    
+    /**
+     * Number of parties written by the last successful save
+     */
+    public int getLastSavedParties() {
+        return lastSavedParties;
+    }
+    
+    /**
+     * Number of parties written by all saves since startup
+     */
+    public long getTotalSavedParties() {
+        return totalSavedParties.get();
     }
     
+    /**
+     * Load parties without blocking the main thread. Records are read and
+     * converted in the background (converted in parallel by the storage
+     * backend), then members are indexed in parallel. Only resolving home
+     * levels runs on the main thread. Until then {@link #isReady()} is false.
+     */
     public void loadAllParties() {
+        ready = false;
         plugin.getLogger().info("Loading parties from storage...");
-        Map<UUID, Party> loadedParties = storage.loadParties();
+        long start = System.currentTimeMillis();
         
-        for (Map.Entry<UUID, Party> entry : loadedParties.entrySet()) {
-            Party party = entry.getValue();
-            parties.put(entry.getKey(), party);
+        if (config.isAsyncLoad()) {
+            try {
+                plugin.getServer().getScheduler().scheduleTask(plugin, () -> {
+                    LoadedParties loaded = readAllParties();
+                    plugin.getServer().getScheduler().scheduleTask(plugin, () -> finishLoading(loaded, start));
+                }, true); // true = async
+                return;
+            } catch (Exception e) {
+                plugin.getLogger().warning("Async load failed, falling back to synchronous load");
+            }
+        }
+        finishLoading(readAllParties(), start);
+    }
+    
+    /**
+     * Whether stored parties have finished loading; party commands are refused until then
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    private LoadedParties readAllParties() {
+        LoadedParties loaded = new LoadedParties();
+        try {
+            loaded.parties = storage.loadParties();
+            loaded.replayed = journal != null ? journal.replay(loaded.parties) : Collections.emptySet();
             
-            // Reconstruct party home with server instance
-            PartyStorage.LocationData homeData = storage.getHomeData(party.getId());
+            // Index members and pick up home data in parallel
+            Set<UUID> replayed = loaded.replayed;
+            loaded.parties.values().parallelStream().forEach(party -> {
+                UUID partyId = party.getId();
+                for (UUID memberId : party.getMembersView()) {
+                    loaded.playerIndex.put(memberId, partyId);
+                }
+                PartyStorage.LocationData homeData = replayed.contains(partyId)
+                    ? journal.getHomeData(partyId) : storage.getHomeData(partyId);
+                if (homeData != null) {
+                    loaded.homes.put(partyId, homeData);
+                }
+            });
+        } catch (RuntimeException e) {
+            plugin.getLogger().error("Error loading parties", e);
+        }
+        return loaded;
+    }
+    
+    private void finishLoading(LoadedParties loaded, long start) {
+        // Reconstruct party homes with the server instance, looking up each level once
+        Map<String, cn.nukkit.level.Level> levels = new HashMap<>();
+        for (Party party : loaded.parties.values()) {
+            PartyStorage.LocationData homeData = loaded.homes.get(party.getId());
             if (homeData != null) {
-                cn.nukkit.level.Level level = plugin.getServer().getLevelByName(homeData.level);
+                cn.nukkit.level.Level level = levels.computeIfAbsent(homeData.level, name -> plugin.getServer().getLevelByName(name));
                 if (level != null) {
                     Location home = new Location(homeData.x, homeData.y, homeData.z, homeData.yaw, homeData.pitch, level);
                     party.setHome(home);
                 }
             }
             
-            // Rebuild player to party mapping
-            for (UUID memberId : party.getMembers()) {
-                playerToParty.put(memberId, party.getId());
+            // Track changes only after the party is fully restored
+            party.setChangeListener(changeListener);
+        }
+        
+        parties.putAll(loaded.parties);
+        players.setParties(loaded.playerIndex);
+        presence.rebuild(plugin.getServer().getOnlinePlayers().values());
+        
+        // Journaled changes are not in the snapshot yet, so the next save must write them
+        for (UUID partyId : loaded.replayed) {
+            if (parties.containsKey(partyId)) {
+                dirtyParties.add(partyId);
+            } else {
+                removedParties.add(partyId);
+            }
+        }
+        
+        ready = true;
+        plugin.getLogger().info("Loaded " + parties.size() + " parties from storage in " + (System.currentTimeMillis() - start) + "ms.");
+    }
+    
+    /**
+     * Write all parties to a JSON file in the data folder, whatever the active backend
+     * @return true if the file was written
+     */
+    public boolean exportParties(String fileName) {
+        JsonPartyStorage target = new JsonPartyStorage(plugin.getDataFolder(), fileName);
+        return target.saveChanges(parties, parties.values(), Collections.emptyList());
+    }
+    
+    /**
+     * Replace all parties with the contents of a JSON file in the data folder.
+     * The file is parsed completely before anything is replaced; a damaged or
+     * empty file leaves the current parties untouched. The imported parties
+     * are written to the active backend on the next save.
+     * @return Number of imported parties, or -1 if the file does not exist
+     * @throws java.io.IOException if the file is damaged or holds no parties
+     */
+    public int importParties(String fileName) throws java.io.IOException {
+        java.io.File file = new java.io.File(plugin.getDataFolder(), fileName);
+        if (!file.exists()) {
+            return -1;
+        }
+        
+        JsonPartyStorage source = new JsonPartyStorage(plugin.getDataFolder(), fileName);
+        Map<UUID, Party> imported = source.loadPartiesStrictly();
+        if (imported.isEmpty()) {
+            throw new java.io.IOException(fileName + " contains no parties");
+        }
+        
+        // Drop the current data set
+        List<Party> dropped = new ArrayList<>(parties.values());
+        for (Party party : dropped) {
+            party.setChangeListener(null);
+            removedParties.add(party.getId());
+            if (journal != null) {
+                journal.recordDelete(party.getId());
+            }
+        }
+        parties.clear();
+        players.clearParties();
+        dirtyParties.clear();
+        partyCache.clear();
+        for (Party party : dropped) {
+            eventBus.publish(new PartyDisbandedEvent(party));
+        }
+        
+        for (Party party : imported.values()) {
+            PartyStorage.LocationData homeData = source.getHomeData(party.getId());
+            if (homeData != null) {
+                cn.nukkit.level.Level level = plugin.getServer().getLevelByName(homeData.level);
+                if (level != null) {
+                    party.setHome(new Location(homeData.x, homeData.y, homeData.z, homeData.yaw, homeData.pitch, level));
+                }
             }
+            parties.put(party.getId(), party);
+            for (UUID memberId : party.getMembersView()) {
+                players.setParty(memberId, party.getId());
+            }
+            party.setChangeListener(changeListener);
+            removedParties.remove(party.getId());
+            onPartyChanged(party);
         }
+        presence.rebuild(plugin.getServer().getOnlinePlayers().values());
         
-        plugin.getLogger().info("Loaded " + parties.size() + " parties from storage.");
+        return imported.size();
     }
     
     public boolean hasParties() {
@@ -502,10 +814,9 @@ public class PartyManager {
      * Clean up player-specific data on quit
      */
     public void cleanupPlayerData(UUID playerId) {
-        lastCommandUse.remove(playerId);
-        lastTeleport.remove(playerId);
-        lastPlayerLocations.remove(playerId);
-        playerInvites.remove(playerId);
+        presence.playerQuit(playerId);
+        players.clearSession(playerId);
+        movementTracker.remove(playerId);
     }
     
     /**
@@ -515,17 +826,8 @@ public class PartyManager {
         Party party = parties.get(partyId);
         if (party == null) return;
         
-        boolean anyOnline = false;
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null && member.isOnline()) {
-                anyOnline = true;
-                break;
-            }
-        }
-        
         // If no members online and config allows cleanup, remove the party
-        if (!anyOnline && plugin.getConfig().getBoolean("party.disband-when-all-offline", false)) {
+        if (presence.getOnlineCount(party) == 0 && config.isDisbandWhenAllOffline()) {
             plugin.getLogger().info("Auto-disbanding party " + partyId + " (all members offline)");
             disbandParty(partyId);
         }
@@ -536,21 +838,11 @@ public class PartyManager {
      */
     public void cleanupExpiredInvites() {
         for (Party party : parties.values()) {
-            // Get invites before cleaning
-            Set<UUID> invitedPlayers = new HashSet<>(party.getInvites().keySet());
-            
-            // Clean expired from party
-            party.cleanExpiredInvites(inviteExpirationTime);
-            
-            // Remove from playerInvites if no longer in party invites
-            for (UUID playerId : invitedPlayers) {
-                if (!party.hasInvite(playerId)) {
-                    playerInvites.remove(playerId);
-                }
-            }
+            // Clean expired from party and drop the players' pending invites
+            party.cleanExpiredInvites(config.getInviteExpiration(), players::removeInvite);
             
             // Clean join requests too
-            party.cleanExpiredJoinRequests(inviteExpirationTime);
+            party.cleanExpiredJoinRequests(config.getInviteExpiration());
         }
     }
     
@@ -558,79 +850,105 @@ public class PartyManager {
      * Start distance check task to auto-remove members who are too far
      */
     public void startDistanceCheckTask() {
-        if (!plugin.getConfig().getBoolean("party.max-distance-check-enabled", false)) {
+        if (!config.isMaxDistanceCheckEnabled()) {
             return;
         }
         
-        int interval = plugin.getConfig().getInt("party.max-distance-check-interval", 200); // 10 seconds
-        
-        distanceCheckTaskId = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, new Task() {
-            @Override
-            public void onRun(int currentTick) {
-                checkDistances();
-            }
-        }, interval, interval);
+        if (distanceCheckPhase == null) {
+            distanceCheckPhase = plugin.getTickEngine().addPartyPhase("distance-check", config.getMaxDistanceCheckInterval(), this::checkDistances);
+        }
     }
     
     /**
-     * Check all party members distances and remove if too far
+     * Check all party members distances and remove if too far.
+     *
+     * Positions are captured here and compared against the leader on the workers; the
+     * removals of a capture are applied on a later run, after checking that the member,
+     * the leader and the party are still what they were when captured.
      */
-    private void checkDistances() {
-        double maxDistance = plugin.getConfig().getDouble("party.max-distance", 500.0);
-        boolean kickOnWorldChange = plugin.getConfig().getBoolean("party.kick-on-world-change", false);
+    private void checkDistances(PartyTickEngine.PartyCursor parties, int tick) {
+        if (distanceJob != null) {
+            if (!distanceJob.isDone()) {
+                return;
+            }
+            applyDistanceViolations(distanceJob);
+            distanceJob = null;
+        }
         
-        for (Party party : parties.values()) {
-            Player leader = plugin.getServer().getPlayer(party.getLeader()).orElse(null);
-            if (leader == null || !leader.isOnline()) {
+        ProximitySnapshot.Builder capture = distanceCapture.reset();
+        Party party;
+        while ((party = parties.next()) != null) {
+            Player leader = presence.getPlayer(party.getLeader());
+            if (leader == null || leader.getLevel() == null) {
                 continue;
             }
-            
-            List<UUID> toRemove = new ArrayList<>();
-            
-            for (UUID memberId : party.getMembers()) {
-                if (memberId.equals(party.getLeader())) {
-                    continue;
+            capture.beginParty(party, false);
+            for (Player member : presence.getOnlineMembers(party)) {
+                if (member.getLevel() != null) {
+                    capture.addMember(member, member.getLevel(), member == leader, false);
                 }
-                
-                Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (member == null || !member.isOnline()) {
+            }
+            capture.endParty();
+        }
+        
+        if (!capture.isEmpty()) {
+            double maxDistance = config.getMaxDistance();
+            boolean kickOnWorldChange = config.isKickOnWorldChange();
+            distanceJob = proximity.submit(capture.build(), (snapshot, from, to) ->
+                ProximityPipeline.distanceViolations(snapshot, from, to, maxDistance, kickOnWorldChange));
+            if (distanceJob.isDone()) {
+                applyDistanceViolations(distanceJob);
+                distanceJob = null;
+            }
+        }
+        if (distanceCheckPhase != null) {
+            distanceCheckPhase.setPending(distanceJob != null);
+        }
+    }
+    
+    /**
+     * Remove the members found too far from their leader, skipping any that changed since the capture
+     */
+    private void applyDistanceViolations(ProximityPipeline.Job<ProximityPipeline.IntPairs> job) {
+        List<ProximityPipeline.IntPairs> results;
+        try {
+            results = job.getResults();
+        } catch (RuntimeException e) {
+            plugin.getLogger().error("Error computing party distances", e);
+            return;
+        }
+        
+        ProximitySnapshot snapshot = job.getSnapshot();
+        for (ProximityPipeline.IntPairs violations : results) {
+            for (int i = 0; i < violations.size(); i++) {
+                int entry = violations.first(i);
+                int partyIndex = snapshot.getPartyOf(entry);
+                Party party = snapshot.getParty(partyIndex);
+                Player leader = snapshot.getPlayer(snapshot.getLeader(partyIndex));
+                Player member = snapshot.getPlayer(entry);
+                UUID memberId = member.getUniqueId();
+                if (!presence.isActive(party) || !leader.isOnline() || !member.isOnline()
+                        || !leader.getUniqueId().equals(party.getLeader()) || !party.isMember(memberId)) {
                     continue;
                 }
                 
-                // Check world change
-                if (kickOnWorldChange && !member.getLevel().getName().equals(leader.getLevel().getName())) {
-                    toRemove.add(memberId);
+                if (violations.second(i) == ProximityPipeline.REASON_WORLD) {
                     member.sendMessage("§cYou were removed from the party (changed world)");
-                    continue;
+                } else {
+                    member.sendMessage("§cYou were removed from the party (too far from leader)");
                 }
-                
-                // Check distance (only if in same world)
-                if (member.getLevel().getName().equals(leader.getLevel().getName())) {
-                    double distance = member.distance(leader);
-                    if (distance > maxDistance) {
-                        toRemove.add(memberId);
-                        member.sendMessage("§cYou were removed from the party (too far from leader)");
-                    }
-                }
-            }
-            
-            // Remove players who are too far
-            for (UUID memberId : toRemove) {
                 party.removeMember(memberId);
-                playerToParty.remove(memberId);
+                players.removeParty(memberId);
+                eventBus.publish(new MemberLeftEvent(party, memberId, MemberLeftEvent.Reason.REMOVED));
                 
                 // Notify leader
-                if (leader != null) {
-                    Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                    String name = member != null ? member.getName() : "Player";
-                    leader.sendMessage("§c" + name + " was removed (distance/world)");
+                leader.sendMessage("§c" + member.getName() + " was removed (distance/world)");
+                
+                // Disband if empty
+                if (party.getMemberCount() == 0) {
+                    disbandParty(party.getId());
                 }
             }
-            
-            // Disband if empty
-            if (party.getMemberCount() == 0) {
-                disbandParty(party.getId());
-            }
         }
     }
     
@@ -638,38 +956,24 @@ public class PartyManager {
      * Start play time tracker task
      */
     public void startPlayTimeTracker() {
-        if (!plugin.getConfig().getBoolean("party.track-playtime", true)) {
+        if (!config.isTrackPlaytime()) {
             return;
         }
         
-        // Update every minute
-        playTimeTaskId = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, new Task() {
-            @Override
-            public void onRun(int currentTick) {
-                updatePlayTime();
-            }
-        }, 1200, 1200); // 1200 ticks = 1 minute
+        // Every active party comes up once a minute
+        if (playTimePhase == null) {
+            playTimePhase = plugin.getTickEngine().addPartyPhase("playtime", 1200, this::updatePlayTime); // 1200 ticks = 1 minute
+        }
     }
     
     /**
      * Update play time for all parties with online members
      */
-    private void updatePlayTime() {
-        for (Party party : parties.values()) {
-            // Check if any members are online
-            boolean hasOnlineMembers = false;
-            for (UUID memberId : party.getMembers()) {
-                Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (member != null && member.isOnline()) {
-                    hasOnlineMembers = true;
-                    break;
-                }
-            }
-            
-            // Add 1 minute of play time if members are online
-            if (hasOnlineMembers) {
-                party.addPlayTime(60000); // 60000 milliseconds = 1 minute
-            }
+    private void updatePlayTime(PartyTickEngine.PartyCursor parties, int tick) {
+        // Add 1 minute of play time to every party with members online
+        Party party;
+        while ((party = parties.next()) != null) {
+            party.addPlayTime(60000); // 60000 milliseconds = 1 minute
         }
     }
     
@@ -681,11 +985,8 @@ public class PartyManager {
             return;
         }
         
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null && member.isOnline()) {
-                member.sendMessage(message);
-            }
+        for (Player member : presence.getOnlineMembers(party)) {
+            member.sendMessage(message);
         }
     }
     
@@ -693,19 +994,32 @@ public class PartyManager {
      * Add a player to an existing party
      */
     public void addPlayerToParty(Player player, Party party) {
-        party.addMember(player.getUniqueId());
-        playerToParty.put(player.getUniqueId(), party.getId());
-        playerInvites.remove(player.getUniqueId());
+        joinMember(party, player.getUniqueId());
         
-        // Invalidate caches
-        partyCache.invalidate(player.getUniqueId());
-        leaderboardCache.clear();
-        
-        String message = plugin.getMessage("player-joined")
-                .replace("{player}", player.getName());
+        String message = plugin.getMessages().get("player-joined")
+                .render("player", player.getName());
         broadcastToParty(party, message);
     }
     
+    /**
+     * Add a member, index it and publish the join before the party change, so
+     * PartyUpdatedEvent listeners (achievements) already count the new member
+     * among the online members
+     */
+    private void joinMember(Party party, UUID playerId) {
+        membershipChange = party;
+        try {
+            party.addMember(playerId);
+        } finally {
+            membershipChange = null;
+        }
+        players.setParty(playerId, party.getId());
+        players.removeInvite(playerId);
+        movementTracker.remove(playerId);  // Render markers for the new member right away
+        eventBus.publish(new MemberJoinedEvent(party, playerId));
+        eventBus.publish(new PartyUpdatedEvent(party));
+    }
+    
     /**
      * Remove player from their party
      */
@@ -717,15 +1031,11 @@ public class PartyManager {
     }
     
     /**
-     * Start memory cleanup task - runs every 5 minutes
+     * Start memory cleanup task - runs every memory-cleanup-interval ticks (5 minutes by default)
      */
     private void startCleanupTask() {
-        cleanupTaskId = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, new Task() {
-            @Override
-            public void onRun(int currentTick) {
-                performMemoryCleanup();
-            }
-        }, 6000, 6000); // 5 minutes
+        cleanupPhase = plugin.getTickEngine().addTask("memory-cleanup", config.getMemoryCleanupInterval(),
+            tick -> performMemoryCleanup());
     }
     
     /**
@@ -734,19 +1044,13 @@ public class PartyManager {
     private void performMemoryCleanup() {
         // Clean expired cache entries
         partyCache.cleanExpired();
-        leaderboardCache.cleanExpired();
         
         // Clean up stale cooldowns (older than 1 hour)
         long oneHourAgo = System.currentTimeMillis() - 3600000;
-        lastCommandUse.entrySet().removeIf(entry -> entry.getValue() < oneHourAgo);
-        lastTeleport.entrySet().removeIf(entry -> entry.getValue() < oneHourAgo);
+        players.expireCooldowns(oneHourAgo);
         
         // Clean up location data for offline players
-        Set<UUID> onlinePlayers = new HashSet<>();
-        for (Player p : plugin.getServer().getOnlinePlayers().values()) {
-            onlinePlayers.add(p.getUniqueId());
-        }
-        lastPlayerLocations.keySet().retainAll(onlinePlayers);
+        movementTracker.retainAll(presence::isOnline);
         
         plugin.getLogger().info("Memory cleanup completed. Cache size: " + partyCache.size());
     }
@@ -755,33 +1059,56 @@ public class PartyManager {
      * Stop cleanup task
      */
     public void stopCleanupTask() {
-        if (cleanupTaskId != null) {
-            cleanupTaskId.cancel();
-            cleanupTaskId = null;
-        }
+        plugin.getTickEngine().remove(cleanupPhase);
+        cleanupPhase = null;
     }
     
     /**
-     * Get leaderboard with caching
+     * Start the task that hands recorded changes to the journal writer
      */
-    public List<Party> getCachedLeaderboard(String type, int limit) {
-        String cacheKey = type + "_" + limit;
-        List<Party> cached = leaderboardCache.get(cacheKey);
-        
-        if (cached != null) {
-            return cached;
+    private void startJournalTask() {
+        if (journal == null) {
+            return;
         }
-        
-        // Will be populated by LeaderboardManager
-        return null;
+        journalPhase = plugin.getTickEngine().addTask("journal", config.getJournalFlushInterval(),
+            tick -> journal.flush(parties));
+    }
+    
+    private void stopJournalTask() {
+        plugin.getTickEngine().remove(journalPhase);
+        journalPhase = null;
+    }
+    
+    private void onPartyChanged(Party party) {
+        dirtyParties.add(party.getId());
+        if (journal != null) {
+            journal.recordChange(party.getId());
+        }
+        if (party != membershipChange) {
+            eventBus.publish(new PartyUpdatedEvent(party));
+        }
+    }
+    
+    /**
+     * Record a player that just joined the server
+     */
+    public void onPlayerJoin(Player player) {
+        presence.playerJoined(player);
     }
     
     /**
-     * Cache leaderboard results
+     * @return Online players and online party members, for this plugin and others
      */
-    public void cacheLeaderboard(String type, int limit, List<Party> results) {
-        String cacheKey = type + "_" + limit;
-        leaderboardCache.put(cacheKey, results);
+    public PresenceIndex getPresence() {
+        return presence;
+    }
+    
+    public PartyEventBus getEventBus() {
+        return eventBus;
+    }
+    
+    public Cache.Stats getPartyCacheStats() {
+        return partyCache.stats();
     }
     
     /**
@@ -790,31 +1117,70 @@ public class PartyManager {
     public void shutdown() {
         plugin.getLogger().info("Shutting down PartyManager...");
         
-        // Save all parties synchronously (plugin is being disabled)
+        // Let async saves finish, then save the rest synchronously (plugin is being disabled)
+        awaitPendingSaves();
         saveAllParties(true);
         
         // Stop all tasks
         stopMarkerTask();
         stopCleanupTask();
-        if (playTimeTaskId != null) {
-            playTimeTaskId.cancel();
-            playTimeTaskId = null;
-        }
+        plugin.getTickEngine().remove(distanceCheckPhase);
+        plugin.getTickEngine().remove(playTimePhase);
+        distanceCheckPhase = null;
+        playTimePhase = null;
+        stopProximityWorkers();
         
         // Clear all caches
         partyCache.clear();
-        leaderboardCache.clear();
+        
+        closeStorage();
         
         plugin.getLogger().info("PartyManager shutdown complete");
     }
     
+    /**
+     * Drop the marker and distance work in flight and stop the worker threads
+     */
+    public void stopProximityWorkers() {
+        if (distanceJob != null) {
+            distanceJob.cancel();
+            distanceJob = null;
+        }
+        if (markerJob != null) {
+            markerJob.cancel();
+            markerJob = null;
+        }
+        proximity.shutdown();
+    }
+    
+    /**
+     * Release the storage backend and journal (waits for running writes to finish)
+     */
+    public void closeStorage() {
+        stopJournalTask();
+        if (journal != null) {
+            journal.close();
+        }
+        storage.close();
+    }
+    
     /**
      * Reload configuration values
      */
     public void reloadConfig() {
-        this.inviteExpirationTime = plugin.getConfig().getLong("party.invite-expiration", 300000);
-        this.commandCooldown = plugin.getConfig().getInt("security.command-cooldown", 3);
-        this.optimizeMarkers = plugin.getConfig().getBoolean("performance.optimize-markers", true);
+        this.config = plugin.getPartyConfig();
+        if (markerPhase != null) {
+            markerPhase.setPeriod(config.getMarkerUpdateInterval());
+        }
+        if (distanceCheckPhase != null) {
+            distanceCheckPhase.setPeriod(config.getMaxDistanceCheckInterval());
+        }
+        if (cleanupPhase != null) {
+            cleanupPhase.setPeriod(config.getMemoryCleanupInterval());
+        }
+        if (journalPhase != null) {
+            journalPhase.setPeriod(config.getJournalFlushInterval());
+        }
         plugin.getLogger().info("PartyManager configuration reloaded");
     }
 }
@@ -0,0 +1,123 @@
+package com.euphoria.party.manager;
+
+import cn.nukkit.Player;
+import cn.nukkit.level.particle.HeartParticle;
+import cn.nukkit.math.Vector3;
+import cn.nukkit.network.protocol.DataPacket;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Renders heart markers above party members.
+ *
+ * The particle for a target is encoded once per tick no matter how many
+ * viewers see it, and the resulting packets are reused on later ticks for as
+ * long as the target stays at the same position. Packets already handed to a
+ * session are never mutated, since the network layer may still be encoding
+ * them. All markers for a viewer are queued in one pass so the session
+ * flushes them together as a single batch.
+ */
+public class PartyMarkerRenderer {
+    
+    private static final double MARKER_HEIGHT = 2.5;
+    
+    private final Map<Player, TargetPackets> targets = new IdentityHashMap<>();
+    private final HeartParticle particle = new HeartParticle(new Vector3());  // Pooled, repositioned per target
+    private DataPacket[] outbox = new DataPacket[32];
+    private int outboxSize = 0;
+    private int particleCount = 1;
+    private int frame = 0;
+    
+    /**
+     * Start a new marker tick
+     */
+    public void beginTick(int particleCount) {
+        this.particleCount = Math.max(1, particleCount);
+        this.frame++;
+        this.outboxSize = 0;
+    }
+    
+    /**
+     * Queue a marker above the target for the current viewer
+     */
+    public void addMarker(Player target) {
+        DataPacket[] packets = encode(target);
+        for (int i = 0; i < particleCount; i++) {
+            for (DataPacket packet : packets) {
+                if (outboxSize == outbox.length) {
+                    outbox = Arrays.copyOf(outbox, outboxSize * 2);
+                }
+                outbox[outboxSize++] = packet;
+            }
+        }
+    }
+    
+    /**
+     * Send all queued markers to the viewer and reset the queue
+     */
+    public void flush(Player viewer) {
+        for (int i = 0; i < outboxSize; i++) {
+            viewer.dataPacket(outbox[i]);
+            outbox[i] = null;
+        }
+        outboxSize = 0;
+    }
+    
+    /**
+     * Finish the tick, dropping cached packets of targets not rendered in the last keepFrames ticks
+     */
+    public void endTick(int keepFrames) {
+        Iterator<TargetPackets> iterator = targets.values().iterator();
+        while (iterator.hasNext()) {
+            if (frame - iterator.next().frame >= keepFrames) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Drop all cached packets
+     */
+    public void clear() {
+        targets.clear();
+        Arrays.fill(outbox, null);
+        outboxSize = 0;
+    }
+    
+    private DataPacket[] encode(Player target) {
+        TargetPackets cached = targets.get(target);
+        if (cached == null) {
+            cached = new TargetPackets();
+            targets.put(target, cached);
+        }
+        
+        double x = target.x;
+        double y = target.y + MARKER_HEIGHT;
+        double z = target.z;
+        
+        if (cached.frame != frame) {
+            // Re-encode only if the target moved since the packets were built
+            if (cached.packets == null || cached.x != x || cached.y != y || cached.z != z) {
+                particle.setComponents(x, y, z);
+                cached.packets = particle.encode();
+                cached.x = x;
+                cached.y = y;
+                cached.z = z;
+            }
+            cached.frame = frame;
+        }
+        
+        return cached.packets;
+    }
+    
+    private static class TargetPackets {
+        private DataPacket[] packets;
+        private double x;
+        private double y;
+        private double z;
+        private int frame = -1;
+    }
+}
@@ -1,8 +1,11 @@
 package com.euphoria.party.manager;
 
 import cn.nukkit.Player;
-import cn.nukkit.scheduler.Task;
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.event.MemberJoinedEvent;
+import com.euphoria.party.event.MemberLeftEvent;
+import com.euphoria.party.event.PartyDisbandedEvent;
+import com.euphoria.party.event.PartyEventBus;
 import com.euphoria.party.model.Party;
 
 import java.util.*;
@@ -10,38 +13,55 @@ import java.util.*;
 public class PartyScoreboardManager {
     
     private final EuphoriaPartyPlugin plugin;
-    private cn.nukkit.scheduler.TaskHandler scoreboardTaskId = null;
+    private PartyTickEngine.Phase scoreboardPhase = null;
     private final Set<UUID> enabledPlayers;
     
     public PartyScoreboardManager(EuphoriaPartyPlugin plugin) {
         this.plugin = plugin;
         this.enabledPlayers = new HashSet<>();
+        
+        // Show the new party right away and clear the board of players who lost theirs
+        PartyEventBus events = plugin.getPartyManager().getEventBus();
+        events.subscribe(MemberJoinedEvent.class, event -> refresh(event.getPlayerId(), event.getParty()));
+        events.subscribe(MemberLeftEvent.class, event -> refresh(event.getPlayerId(), null));
+        events.subscribe(PartyDisbandedEvent.class, event -> event.getParty().forEachMember(memberId -> refresh(memberId, null)));
+    }
+    
+    private void refresh(UUID playerId, Party party) {
+        if (scoreboardPhase == null || !enabledPlayers.contains(playerId)) {
+            return;
+        }
+        Player player = plugin.getPartyManager().getPresence().getPlayer(playerId);
+        if (player == null || !player.isOnline()) {
+            return;
+        }
+        if (party != null) {
+            updatePlayerScoreboard(player, party);
+        } else {
+            clearScoreboard(player);
+        }
     }
     
     public void startScoreboardTask() {
-        if (!plugin.getConfig().getBoolean("party.scoreboard.enabled", false)) {
+        if (!plugin.getPartyConfig().isScoreboardEnabled()) {
             return;
         }
         
-        int interval = plugin.getConfig().getInt("party.scoreboard.update-interval", 40); // 2 seconds
+        int interval = plugin.getPartyConfig().getScoreboardUpdateInterval(); // 2 seconds
         
-        scoreboardTaskId = plugin.getServer().getScheduler().scheduleDelayedRepeatingTask(plugin, new Task() {
-            @Override
-            public void onRun(int currentTick) {
-                updateScoreboards();
-            }
-        }, interval, interval);
+        // Online players are spread over the ticks of the interval
+        if (scoreboardPhase == null) {
+            scoreboardPhase = plugin.getTickEngine().addPlayerPhase("scoreboard", interval, this::updateScoreboards);
+        }
     }
     
     public void stopScoreboardTask() {
-        if (scoreboardTaskId != null) {
-            scoreboardTaskId.cancel();
-            scoreboardTaskId = null;
-        }
+        plugin.getTickEngine().remove(scoreboardPhase);
+        scoreboardPhase = null;
     }
     
     public void toggleScoreboard(UUID playerId) {
-        Player player = plugin.getServer().getPlayer(playerId).orElse(null);
+        Player player = plugin.getPartyManager().getPresence().getPlayer(playerId);
         if (player == null) {
             return;
         }
@@ -61,10 +81,10 @@ public class PartyScoreboardManager {
         }
     }
     
-    private void updateScoreboards() {
-        for (UUID playerId : enabledPlayers) {
-            Player player = plugin.getServer().getPlayer(playerId).orElse(null);
-            if (player == null || !player.isOnline()) {
+    private void updateScoreboards(List<Player> shard, int tick) {
+        for (Player player : shard) {
+            UUID playerId = player.getUniqueId();
+            if (!enabledPlayers.contains(playerId) || !player.isOnline()) {
                 continue;
             }
             
@@ -80,11 +100,8 @@ public class PartyScoreboardManager {
     private void updatePlayerScoreboard(Player player, Party party) {
         // Count online members
         int onlineCount = 0;
-        for (UUID memberId : party.getMembers()) {
-            Player member = plugin.getServer().getPlayer(memberId).orElse(null);
-            if (member != null && member.isOnline()) {
-                onlineCount++;
-            }
+        for (Player member : plugin.getPartyManager().getPresence().getOnlineMembers(party)) {
+            onlineCount++;
         }
         
         // Format playtime
@@ -117,7 +134,7 @@ public class PartyScoreboardManager {
         }
         
         // Use popup for better positioning (appears in center-top instead of action bar)
-        String displayType = plugin.getConfig().getString("party.scoreboard.display-type", "popup");
+        String displayType = plugin.getPartyConfig().getScoreboardDisplayType();
         if (displayType.equalsIgnoreCase("popup")) {
             player.sendPopup(sb.toString());
         } else {
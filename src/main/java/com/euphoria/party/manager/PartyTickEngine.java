@@ -0,0 +1,484 @@
+package com.euphoria.party.manager;
+
+import cn.nukkit.Player;
+import cn.nukkit.scheduler.Task;
+import cn.nukkit.scheduler.TaskHandler;
+import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.model.Party;
+import com.euphoria.party.util.CoarseClock;
+import com.euphoria.party.util.PartyConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * One repeating task that drives every periodic job of the plugin.
+ *
+ * Each tick the engine walks the active parties and the online players once
+ * and hands every phase the slice that is due: a party or player belongs to
+ * shard (id hash mod period), and shard (tick mod period) runs on this tick.
+ * Every party is still visited once per period, but the work of a pass is
+ * spread evenly over the ticks of that period instead of landing on one.
+ * Plain tasks (saves, cleanup) run once per period at an offset derived from
+ * their name so they don't pile up on the same tick. Every phase is timed
+ * against its budget; overruns are counted and logged when
+ * debug.log-performance is on.
+ *
+ * Party phases are resumable: due parties are queued on the phase and taken
+ * from a {@link PartyCursor} that stops handing out parties once the budget
+ * of the tick is spent. The rest stays queued and is worked off first on the
+ * following ticks, so a pass that outgrows its budget is stretched over more
+ * ticks instead of lengthening one. How many ticks a full sweep over all
+ * parties took is recorded per phase.
+ */
+public class PartyTickEngine {
+    
+    private static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+    
+    /**
+     * Work on the parties due this tick; take them from the cursor until it runs dry
+     */
+    public interface PartyPhase {
+        void run(PartyCursor parties, int tick);
+    }
+    
+    /**
+     * Work on the online players due this tick
+     */
+    public interface PlayerPhase {
+        void run(List<Player> shard, int tick);
+    }
+    
+    /**
+     * Work that runs as a whole once per period
+     */
+    public interface TaskPhase {
+        void run(int tick);
+    }
+    
+    private final EuphoriaPartyPlugin plugin;
+    private Phase[] phases = new Phase[0];
+    private TaskHandler taskHandler = null;
+    
+    public PartyTickEngine(EuphoriaPartyPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    public Phase addPartyPhase(String name, int period, PartyPhase action) {
+        return add(new Phase(name, period, action, null, null));
+    }
+    
+    public Phase addPlayerPhase(String name, int period, PlayerPhase action) {
+        return add(new Phase(name, period, null, action, null));
+    }
+    
+    public Phase addTask(String name, int period, TaskPhase action) {
+        return add(new Phase(name, period, null, null, action));
+    }
+    
+    public void remove(Phase phase) {
+        if (phase == null) {
+            return;
+        }
+        List<Phase> remaining = new ArrayList<>(Arrays.asList(phases));
+        remaining.remove(phase);
+        phases = remaining.toArray(new Phase[0]);
+        if (phase.cursor != null) {
+            phase.cursor.clear();
+        }
+    }
+    
+    /**
+     * @return Registered phases in run order
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(Arrays.asList(phases));
+    }
+    
+    public void start() {
+        if (taskHandler != null) {
+            return;
+        }
+        taskHandler = plugin.getServer().getScheduler().scheduleRepeatingTask(new Task() {
+            @Override
+            public void onRun(int currentTick) {
+                tick(currentTick);
+            }
+        }, 1);
+    }
+    
+    public void stop() {
+        if (taskHandler != null) {
+            taskHandler.cancel();
+            taskHandler = null;
+        }
+    }
+    
+    /**
+     * Pick up the phase budgets of the current config snapshot
+     */
+    public void reloadConfig() {
+        PartyConfig config = plugin.getPartyConfig();
+        for (Phase phase : phases) {
+            phase.budgetNanos = config.getPhaseBudgetNanos(phase.name, DEFAULT_BUDGET_NANOS);
+        }
+    }
+    
+    private Phase add(Phase phase) {
+        phase.budgetNanos = plugin.getPartyConfig().getPhaseBudgetNanos(phase.name, DEFAULT_BUDGET_NANOS);
+        Phase[] updated = Arrays.copyOf(phases, phases.length + 1);
+        updated[phases.length] = phase;
+        phases = updated;
+        return phase;
+    }
+    
+    private void tick(int tick) {
+        CoarseClock.tick();
+        
+        Phase[] current = phases;
+        if (current.length == 0) {
+            return;
+        }
+        
+        // One walk over the active parties and online players fills every phase's shard
+        PresenceIndex presence = plugin.getPartyManager().getPresence();
+        boolean partyPhases = false;
+        boolean playerPhases = false;
+        for (Phase phase : current) {
+            partyPhases |= phase.partyAction != null;
+            playerPhases |= phase.playerAction != null;
+        }
+        if (partyPhases) {
+            for (Party party : presence.getActiveParties()) {
+                int hash = shardHash(party.getId());
+                for (Phase phase : current) {
+                    if (phase.partyAction != null && phase.isShardDue(hash, tick)) {
+                        phase.cursor.enqueue(party, tick);
+                    }
+                }
+            }
+        }
+        if (playerPhases) {
+            for (Player player : presence.getOnlinePlayers()) {
+                int hash = shardHash(player.getUniqueId());
+                for (Phase phase : current) {
+                    if (phase.playerAction != null && phase.isShardDue(hash, tick)) {
+                        phase.players.add(player);
+                    }
+                }
+            }
+        }
+        
+        boolean logPerformance = plugin.getPartyConfig().isLogPerformance();
+        for (Phase phase : current) {
+            if (!phase.isDue(tick)) {
+                continue;
+            }
+            
+            long start = System.nanoTime();
+            try {
+                if (phase.cursor != null) {
+                    phase.cursor.begin(presence, start, phase.budgetNanos);
+                }
+                phase.run(tick);
+            } catch (RuntimeException e) {
+                plugin.getLogger().error("Error in tick phase " + phase.name, e);
+            } finally {
+                phase.players.clear();
+            }
+            long elapsed = System.nanoTime() - start;
+            
+            if (phase.record(elapsed) && logPerformance) {
+                plugin.getLogger().warning("[PERFORMANCE] Tick phase " + phase.name + " took "
+                    + elapsed / 1000 + "µs (budget " + phase.budgetNanos / 1000 + "µs, "
+                    + phase.getBacklog() + " deferred)");
+            }
+        }
+        
+        for (Phase phase : current) {
+            if (phase.cursor != null) {
+                phase.cursor.trackSweep(tick, phase.period);
+            }
+        }
+    }
+    
+    /**
+     * Stable hash of an id; the low bits of random UUIDs are already uniform
+     */
+    private static int shardHash(UUID id) {
+        long bits = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+        return hash & Integer.MAX_VALUE;
+    }
+    
+    /**
+     * A registered periodic job with its timing counters
+     */
+    public static final class Phase {
+        private final String name;
+        private final PartyPhase partyAction;
+        private final PlayerPhase playerAction;
+        private final TaskPhase taskAction;
+        private final PartyCursor cursor;  // Party phases only
+        private final List<Player> players = new ArrayList<>();
+        private volatile int period;
+        private volatile long budgetNanos;
+        private volatile boolean pending;
+        
+        private volatile long runs;
+        private volatile long overruns;
+        private volatile long lastNanos;
+        private volatile long maxNanos;
+        private volatile long totalNanos;
+        
+        private Phase(String name, int period, PartyPhase partyAction, PlayerPhase playerAction, TaskPhase taskAction) {
+            this.name = name;
+            this.period = Math.max(1, period);
+            this.partyAction = partyAction;
+            this.playerAction = playerAction;
+            this.taskAction = taskAction;
+            this.cursor = partyAction != null ? new PartyCursor() : null;
+        }
+        
+        /**
+         * Change how often every party or player is visited, e.g. after a config reload
+         */
+        public void setPeriod(int period) {
+            this.period = Math.max(1, period);
+            if (cursor != null) {
+                cursor.sweepWindow = Long.MIN_VALUE;  // Restart the sweep measurement
+            }
+        }
+        
+        /**
+         * Keep running a party phase on ticks without due parties, e.g. to collect results in flight
+         */
+        public void setPending(boolean pending) {
+            this.pending = pending;
+        }
+        
+        private boolean isShardDue(int hash, int tick) {
+            return hash % period == Math.floorMod(tick, period);
+        }
+        
+        private boolean isDue(int tick) {
+            if (taskAction != null) {
+                // Stagger plain tasks by name so equal periods don't share a tick
+                return Math.floorMod(tick - (name.hashCode() & Integer.MAX_VALUE), period) == 0;
+            }
+            return (cursor != null && (cursor.size > 0 || pending)) || !players.isEmpty();
+        }
+        
+        private void run(int tick) {
+            if (partyAction != null) {
+                partyAction.run(cursor, tick);
+            } else if (playerAction != null) {
+                playerAction.run(players, tick);
+            } else {
+                taskAction.run(tick);
+            }
+        }
+        
+        /**
+         * @return true if the run went over budget
+         */
+        private boolean record(long elapsed) {
+            runs++;
+            lastNanos = elapsed;
+            totalNanos += elapsed;
+            if (elapsed > maxNanos) {
+                maxNanos = elapsed;
+            }
+            if (elapsed > budgetNanos) {
+                overruns++;
+                return true;
+            }
+            return false;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public int getPeriod() {
+            return period;
+        }
+        
+        public long getBudgetNanos() {
+            return budgetNanos;
+        }
+        
+        public long getRuns() {
+            return runs;
+        }
+        
+        public long getOverruns() {
+            return overruns;
+        }
+        
+        public long getLastNanos() {
+            return lastNanos;
+        }
+        
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+        
+        public double getAverageNanos() {
+            long count = runs;
+            return count == 0 ? 0.0 : (double) totalNanos / count;
+        }
+        
+        /**
+         * @return Whether parties are handed out through a resumable cursor
+         */
+        public boolean isResumable() {
+            return cursor != null;
+        }
+        
+        /**
+         * @return Parties due but deferred to a later tick
+         */
+        public int getBacklog() {
+            return cursor != null ? cursor.size : 0;
+        }
+        
+        /**
+         * @return Ticks the last full sweep over all parties took; the period when keeping up
+         */
+        public int getLastSweepTicks() {
+            return cursor != null ? cursor.lastSweepTicks : 0;
+        }
+        
+        public int getMaxSweepTicks() {
+            return cursor != null ? cursor.maxSweepTicks : 0;
+        }
+    }
+    
+    /**
+     * Queue of due parties of one phase, handed out until the tick's budget is spent.
+     *
+     * Parties are kept in due order, so deferred ones go first on the next tick.
+     * A party still queued when its shard comes up again is not added twice, and
+     * parties that went offline while queued are skipped.
+     */
+    public static final class PartyCursor {
+        private Party[] queue = new Party[16];
+        private int[] dueTicks = new int[16];
+        private int head;
+        private int size;
+        private final Set<Party> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+        
+        private PresenceIndex presence;
+        private long startNanos;
+        private long budgetNanos;
+        private int handedOut;
+        private int dueTick;
+        
+        // Sweep = every party due in one period window, [window * period, (window + 1) * period)
+        private volatile long sweepWindow = Long.MIN_VALUE;
+        private volatile int lastSweepTicks;
+        private volatile int maxSweepTicks;
+        
+        private PartyCursor() {
+        }
+        
+        /**
+         * @return The next party to work on, or null when none are left or the budget is spent.
+         * At least one party is handed out per tick, so a backlog always shrinks.
+         */
+        public Party next() {
+            while (size > 0) {
+                if (handedOut > 0 && System.nanoTime() - startNanos >= budgetNanos) {
+                    return null;
+                }
+                Party party = queue[head];
+                dueTick = dueTicks[head];
+                queue[head] = null;
+                head = (head + 1) & (queue.length - 1);
+                size--;
+                queued.remove(party);
+                if (presence.isActive(party)) {
+                    handedOut++;
+                    return party;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * @return Tick the party last returned by {@link #next()} became due on
+         */
+        public int getDueTick() {
+            return dueTick;
+        }
+        
+        private void enqueue(Party party, int tick) {
+            if (!queued.add(party)) {
+                return;
+            }
+            if (size == queue.length) {
+                grow();
+            }
+            int tail = (head + size) & (queue.length - 1);
+            queue[tail] = party;
+            dueTicks[tail] = tick;
+            size++;
+        }
+        
+        private void begin(PresenceIndex presence, long startNanos, long budgetNanos) {
+            this.presence = presence;
+            this.startNanos = startNanos;
+            this.budgetNanos = budgetNanos;
+            this.handedOut = 0;
+        }
+        
+        /**
+         * Record the length of the oldest sweep once all of its parties were worked off
+         */
+        private void trackSweep(int tick, int period) {
+            long window = sweepWindow;
+            if (window == Long.MIN_VALUE) {
+                sweepWindow = Math.floorDiv(tick, period);
+                return;
+            }
+            if (tick < (window + 1) * period - 1) {
+                return;  // Window still filling
+            }
+            if (size > 0 && Math.floorDiv(dueTicks[head], period) <= window) {
+                return;  // Parties of the window still deferred
+            }
+            int ticks = (int) Math.min(Integer.MAX_VALUE, tick - window * period + 1);
+            lastSweepTicks = ticks;
+            if (ticks > maxSweepTicks) {
+                maxSweepTicks = ticks;
+            }
+            sweepWindow = size > 0 ? Math.floorDiv(dueTicks[head], period) : Math.floorDiv(tick + 1, period);
+        }
+        
+        private void grow() {
+            Party[] grownQueue = new Party[queue.length * 2];
+            int[] grownDue = new int[queue.length * 2];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) & (queue.length - 1);
+                grownQueue[i] = queue[index];
+                grownDue[i] = dueTicks[index];
+            }
+            queue = grownQueue;
+            dueTicks = grownDue;
+            head = 0;
+        }
+        
+        private void clear() {
+            Arrays.fill(queue, null);
+            head = 0;
+            size = 0;
+            queued.clear();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.euphoria.party.manager;
+
+import cn.nukkit.Player;
+import com.euphoria.party.event.MemberJoinedEvent;
+import com.euphoria.party.event.MemberLeftEvent;
+import com.euphoria.party.event.PartyDisbandedEvent;
+import com.euphoria.party.event.PartyEventBus;
+import com.euphoria.party.model.Party;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Online players, the online members of every party and the set of active
+ * parties (parties with at least one member online).
+ *
+ * Kept up to date from join/quit and membership events, so callers iterate
+ * the online members of a party directly instead of resolving every member
+ * through the server, and periodic tasks walk only the active parties, so
+ * their cost follows the online players rather than the stored parties. The
+ * member lists are immutable and replaced on change; their size is the
+ * party's online count. Reads take no lock and may run on any thread. Safe
+ * for other plugins to use through {@link PartyManager#getPresence()}.
+ */
+public class PresenceIndex {
+    
+    private final Map<UUID, Player> online = new ConcurrentHashMap<>();
+    private final Map<UUID, List<Player>> onlineByParty = new ConcurrentHashMap<>();
+    private final Map<UUID, Party> activeParties = new ConcurrentHashMap<>();  // Same keys as onlineByParty
+    private final Collection<Party> activeView = Collections.unmodifiableCollection(activeParties.values());
+    private final Collection<Player> onlineView = Collections.unmodifiableCollection(online.values());
+    private final Function<UUID, Party> partyOf;  // Player id to party
+    
+    PresenceIndex(PartyEventBus events, Function<UUID, Party> partyOf) {
+        this.partyOf = partyOf;
+        events.subscribe(MemberJoinedEvent.class, event -> {
+            Player player = online.get(event.getPlayerId());
+            if (player != null) {
+                add(event.getParty(), player);
+            }
+        });
+        events.subscribe(MemberLeftEvent.class, event -> remove(event.getParty().getId(), event.getPlayerId()));
+        events.subscribe(PartyDisbandedEvent.class, event -> deactivate(event.getParty().getId()));
+    }
+    
+    /**
+     * @return The player if online, otherwise null
+     */
+    public Player getPlayer(UUID playerId) {
+        return online.get(playerId);
+    }
+    
+    public boolean isOnline(UUID playerId) {
+        return online.containsKey(playerId);
+    }
+    
+    /**
+     * @return Online members of the party; an immutable snapshot
+     */
+    public List<Player> getOnlineMembers(Party party) {
+        return getOnlineMembers(party.getId());
+    }
+    
+    public List<Player> getOnlineMembers(UUID partyId) {
+        List<Player> members = onlineByParty.get(partyId);
+        return members != null ? members : Collections.emptyList();
+    }
+    
+    public int getOnlineCount(Party party) {
+        return getOnlineMembers(party.getId()).size();
+    }
+    
+    public boolean isActive(Party party) {
+        return activeParties.containsKey(party.getId());
+    }
+    
+    /**
+     * @return Live, unmodifiable view of the parties with at least one member online
+     */
+    public Collection<Party> getActiveParties() {
+        return activeView;
+    }
+    
+    /**
+     * @return Live, unmodifiable view of the online players
+     */
+    public Collection<Player> getOnlinePlayers() {
+        return onlineView;
+    }
+    
+    public int getOnlinePlayerCount() {
+        return online.size();
+    }
+    
+    synchronized void playerJoined(Player player) {
+        UUID playerId = player.getUniqueId();
+        online.put(playerId, player);
+        Party party = partyOf.apply(playerId);
+        if (party != null) {
+            add(party, player);
+        }
+    }
+    
+    synchronized void playerQuit(UUID playerId) {
+        if (online.remove(playerId) == null) {
+            return;
+        }
+        Party party = partyOf.apply(playerId);
+        if (party != null) {
+            remove(party.getId(), playerId);
+        }
+    }
+    
+    /**
+     * Re-index the online members of every party, after parties were loaded or replaced
+     */
+    synchronized void rebuild(Collection<Player> players) {
+        online.clear();
+        Map<Party, List<Player>> byParty = new HashMap<>();
+        for (Player player : players) {
+            online.put(player.getUniqueId(), player);
+            Party party = partyOf.apply(player.getUniqueId());
+            if (party != null) {
+                byParty.computeIfAbsent(party, key -> new ArrayList<>()).add(player);
+            }
+        }
+        onlineByParty.clear();
+        activeParties.clear();
+        for (Map.Entry<Party, List<Player>> entry : byParty.entrySet()) {
+            UUID partyId = entry.getKey().getId();
+            onlineByParty.put(partyId, List.copyOf(entry.getValue()));
+            activeParties.put(partyId, entry.getKey());
+        }
+    }
+    
+    private synchronized void add(Party party, Player player) {
+        UUID partyId = party.getId();
+        List<Player> members = onlineByParty.getOrDefault(partyId, Collections.emptyList());
+        if (members.contains(player)) {
+            return;
+        }
+        List<Player> updated = new ArrayList<>(members.size() + 1);
+        updated.addAll(members);
+        updated.add(player);
+        onlineByParty.put(partyId, List.copyOf(updated));
+        activeParties.put(partyId, party);
+    }
+    
+    private synchronized void remove(UUID partyId, UUID playerId) {
+        List<Player> members = onlineByParty.get(partyId);
+        if (members == null) {
+            return;
+        }
+        List<Player> updated = new ArrayList<>(members.size());
+        for (Player member : members) {
+            if (!member.getUniqueId().equals(playerId)) {
+                updated.add(member);
+            }
+        }
+        if (updated.isEmpty()) {
+            deactivate(partyId);
+        } else if (updated.size() != members.size()) {
+            onlineByParty.put(partyId, List.copyOf(updated));
+        }
+    }
+    
+    private synchronized void deactivate(UUID partyId) {
+        onlineByParty.remove(partyId);
+        activeParties.remove(partyId);
+    }
+}
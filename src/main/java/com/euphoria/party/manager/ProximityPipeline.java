@@ -0,0 +1,321 @@
+package com.euphoria.party.manager;
+
+import com.euphoria.party.util.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pool for the proximity math of the marker and distance passes.
+ *
+ * The main thread captures a {@link ProximitySnapshot}, the workers compute
+ * on it in chunks of parties and the main thread applies the results in one
+ * batch once every chunk is done. The computations only read the snapshot's
+ * primitive arrays; they never touch players, levels or parties. With zero
+ * threads the chunks are computed right away on the calling thread.
+ */
+final class ProximityPipeline {
+    
+    static final int REASON_WORLD = 0;
+    static final int REASON_DISTANCE = 1;
+    
+    private static final int CHUNK_ENTRIES = 512;  // Members per work item
+    private static final int GRID_MIN_MEMBERS = 64;  // Smaller parties are scanned pair by pair (see MarkerBroadphaseBenchmark)
+    
+    private final ExecutorService workers;  // null = compute on the calling thread
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    
+    /**
+     * Pure computation on the parties [fromParty, toParty) of a snapshot
+     */
+    interface Computation<R> {
+        R compute(ProximitySnapshot snapshot, int fromParty, int toParty);
+    }
+    
+    ProximityPipeline(int threads) {
+        if (threads <= 0) {
+            this.workers = null;
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "EuphoriaParty-Proximity-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Split the snapshot into chunks and compute them on the workers
+     */
+    <R> Job<R> submit(ProximitySnapshot snapshot, Computation<R> computation) {
+        List<CompletableFuture<R>> chunks = new ArrayList<>();
+        int from = 0;
+        int entries = 0;
+        int partyCount = snapshot.getPartyCount();
+        for (int party = 0; party < partyCount; party++) {
+            entries += snapshot.getEnd(party) - snapshot.getStart(party);
+            if (entries >= CHUNK_ENTRIES || party == partyCount - 1) {
+                chunks.add(submit(snapshot, computation, from, party + 1));
+                from = party + 1;
+                entries = 0;
+            }
+        }
+        return new Job<>(snapshot, chunks);
+    }
+    
+    private <R> CompletableFuture<R> submit(ProximitySnapshot snapshot, Computation<R> computation, int from, int to) {
+        if (workers == null) {
+            return CompletableFuture.completedFuture(computation.compute(snapshot, from, to));
+        }
+        return CompletableFuture.supplyAsync(() -> computation.compute(snapshot, from, to), workers);
+    }
+    
+    void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+    
+    /**
+     * (viewer, target) entry pairs of every marker to render: pairs in the same
+     * party and level within maxDistance where the viewer or the target moved,
+     * or every such pair if the party is due for a refresh.
+     *
+     * A spatial grid only pays off for large parties; parties below
+     * GRID_MIN_MEMBERS are scanned pair by pair, which is much cheaper at
+     * ordinary party sizes.
+     */
+    IntPairs markerTargets(ProximitySnapshot snapshot, int fromParty, int toParty, double maxDistance) {
+        Scratch local = scratch.get();
+        SpatialGrid<Void> grid = local.grid;
+        grid.reset(maxDistance);
+        local.pairs.clear();
+        
+        // Small parties directly, large ones into the broadphase with one group per party
+        int group = 0;
+        int[] entries = local.entries(snapshot.size());
+        for (int party = fromParty; party < toParty; party++) {
+            int start = snapshot.getStart(party);
+            int end = snapshot.getEnd(party);
+            if (!snapshot.isRefresh(party) && !anyDirty(snapshot, start, end)) {
+                continue;
+            }
+            if (end - start < GRID_MIN_MEMBERS) {
+                scanPairs(snapshot, party, maxDistance, local.pairs);
+                continue;
+            }
+            for (int entry = start; entry < end; entry++) {
+                entries[grid.size()] = entry;
+                grid.insert(snapshot.getLevelKey(entry), group, snapshot.getX(entry), snapshot.getY(entry),
+                    snapshot.getZ(entry), null);
+            }
+            group++;
+        }
+        
+        MarkerVisitor visitor = local.visitor;
+        visitor.snapshot = snapshot;
+        visitor.entries = entries;
+        visitor.pairs = local.pairs;
+        for (int i = 0; i < grid.size(); i++) {
+            int viewer = entries[i];
+            int party = snapshot.getPartyOf(viewer);
+            visitor.viewer = viewer;
+            visitor.renderAll = snapshot.isRefresh(party) || snapshot.isDirty(viewer);
+            grid.query(snapshot.getLevelKey(viewer), grid.getGroup(i), snapshot.getX(viewer), snapshot.getY(viewer),
+                snapshot.getZ(viewer), maxDistance, visitor);
+        }
+        visitor.snapshot = null;
+        return local.pairs.copy();
+    }
+    
+    /**
+     * (member, reason) pairs of every member who is in another level than the
+     * leader (if kickOnWorldChange) or further than maxDistance from the leader
+     */
+    static IntPairs distanceViolations(ProximitySnapshot snapshot, int fromParty, int toParty,
+                                       double maxDistance, boolean kickOnWorldChange) {
+        IntPairs violations = new IntPairs();
+        double maxDistanceSquared = maxDistance * maxDistance;
+        for (int party = fromParty; party < toParty; party++) {
+            int leader = snapshot.getLeader(party);
+            if (leader < 0) {
+                continue;
+            }
+            for (int member = snapshot.getStart(party); member < snapshot.getEnd(party); member++) {
+                if (member == leader) {
+                    continue;
+                }
+                if (snapshot.getLevel(member) != snapshot.getLevel(leader)) {
+                    if (kickOnWorldChange) {
+                        violations.add(member, REASON_WORLD);
+                    }
+                    continue;
+                }
+                double dx = snapshot.getX(member) - snapshot.getX(leader);
+                double dy = snapshot.getY(member) - snapshot.getY(leader);
+                double dz = snapshot.getZ(member) - snapshot.getZ(leader);
+                if (dx * dx + dy * dy + dz * dz > maxDistanceSquared) {
+                    violations.add(member, REASON_DISTANCE);
+                }
+            }
+        }
+        return violations;
+    }
+    
+    /**
+     * Marker pairs of one party by comparing every member with every other member
+     */
+    private static void scanPairs(ProximitySnapshot snapshot, int party, double maxDistance, IntPairs pairs) {
+        double maxDistanceSquared = maxDistance * maxDistance;
+        int start = snapshot.getStart(party);
+        int end = snapshot.getEnd(party);
+        boolean refresh = snapshot.isRefresh(party);
+        for (int viewer = start; viewer < end; viewer++) {
+            boolean renderAll = refresh || snapshot.isDirty(viewer);
+            for (int target = start; target < end; target++) {
+                if (target == viewer || !(renderAll || snapshot.isDirty(target))
+                    || snapshot.getLevel(target) != snapshot.getLevel(viewer)) {
+                    continue;
+                }
+                double dx = snapshot.getX(target) - snapshot.getX(viewer);
+                double dy = snapshot.getY(target) - snapshot.getY(viewer);
+                double dz = snapshot.getZ(target) - snapshot.getZ(viewer);
+                if (dx * dx + dy * dy + dz * dz <= maxDistanceSquared) {
+                    pairs.add(viewer, target);
+                }
+            }
+        }
+    }
+    
+    private static boolean anyDirty(ProximitySnapshot snapshot, int start, int end) {
+        for (int entry = start; entry < end; entry++) {
+            if (snapshot.isDirty(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Computation in flight; its results are read on the main thread once it is done
+     */
+    static final class Job<R> {
+        private final ProximitySnapshot snapshot;
+        private final List<CompletableFuture<R>> chunks;
+        
+        private Job(ProximitySnapshot snapshot, List<CompletableFuture<R>> chunks) {
+            this.snapshot = snapshot;
+            this.chunks = chunks;
+        }
+        
+        ProximitySnapshot getSnapshot() {
+            return snapshot;
+        }
+        
+        boolean isDone() {
+            for (CompletableFuture<R> chunk : chunks) {
+                if (!chunk.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * @return Chunk results in party order; only call once {@link #isDone()}
+         * @throws java.util.concurrent.CompletionException if a chunk failed
+         */
+        List<R> getResults() {
+            List<R> results = new ArrayList<>(chunks.size());
+            for (CompletableFuture<R> chunk : chunks) {
+                results.add(chunk.join());
+            }
+            return results;
+        }
+        
+        void cancel() {
+            for (CompletableFuture<R> chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+    }
+    
+    /**
+     * Growable list of int pairs
+     */
+    static final class IntPairs {
+        private int[] data = new int[32];
+        private int size;
+        
+        void add(int first, int second) {
+            if (size * 2 == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size * 2] = first;
+            data[size * 2 + 1] = second;
+            size++;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        int first(int index) {
+            return data[index * 2];
+        }
+        
+        int second(int index) {
+            return data[index * 2 + 1];
+        }
+        
+        private void clear() {
+            size = 0;
+        }
+        
+        private IntPairs copy() {
+            IntPairs copy = new IntPairs();
+            copy.data = Arrays.copyOf(data, Math.max(2, size * 2));
+            copy.size = size;
+            return copy;
+        }
+    }
+    
+    /**
+     * Per-thread buffers of the marker computation
+     */
+    private static final class Scratch {
+        private final SpatialGrid<Void> grid = new SpatialGrid<>();
+        private final MarkerVisitor visitor = new MarkerVisitor();
+        private final IntPairs pairs = new IntPairs();
+        private int[] entries = new int[64];  // Grid index to snapshot entry
+        
+        private int[] entries(int size) {
+            if (entries.length < size) {
+                entries = new int[Math.max(size, entries.length * 2)];
+            }
+            return entries;
+        }
+    }
+    
+    private static final class MarkerVisitor implements SpatialGrid.Visitor {
+        private ProximitySnapshot snapshot;
+        private int[] entries;
+        private IntPairs pairs;
+        private int viewer;
+        private boolean renderAll;
+        
+        @Override
+        public void accept(int index, double distanceSquared) {
+            int target = entries[index];
+            if (target != viewer && (renderAll || snapshot.isDirty(target))) {
+                pairs.add(viewer, target);
+            }
+        }
+    }
+}
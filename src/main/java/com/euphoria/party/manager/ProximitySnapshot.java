@@ -0,0 +1,221 @@
+package com.euphoria.party.manager;
+
+import cn.nukkit.Player;
+import com.euphoria.party.model.Party;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Positions of the online members of a batch of parties, captured on the
+ * main thread for the proximity workers.
+ *
+ * Everything the workers read is a primitive copy: coordinates, a small
+ * level id and the movement flags of the marker pass. The party and player
+ * references are carried along only so the main thread can apply the results;
+ * workers never call into them. Members of party p are the entries
+ * [getStart(p), getEnd(p)). Instances are immutable once built.
+ */
+final class ProximitySnapshot {
+    
+    private final Party[] parties;
+    private final int[] partyStart;   // One more than parties; entries of party p are [start[p], start[p + 1])
+    private final int[] leaders;      // Entry index of the party leader, or -1 if offline
+    private final boolean[] refresh;  // Per party: re-send every marker regardless of movement
+    private final Player[] players;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final int[] levels;
+    private final Object[] levelKeys;  // Level objects by id; only compared by identity
+    private final boolean[] dirty;     // Per entry: moved since its markers were last rendered
+    
+    private ProximitySnapshot(Builder builder) {
+        int partyCount = builder.partyCount;
+        int size = builder.size;
+        this.parties = Arrays.copyOf(builder.parties, partyCount);
+        this.partyStart = Arrays.copyOf(builder.partyStart, partyCount + 1);
+        this.leaders = Arrays.copyOf(builder.leaders, partyCount);
+        this.refresh = Arrays.copyOf(builder.refresh, partyCount);
+        this.players = Arrays.copyOf(builder.players, size);
+        this.xs = Arrays.copyOf(builder.xs, size);
+        this.ys = Arrays.copyOf(builder.ys, size);
+        this.zs = Arrays.copyOf(builder.zs, size);
+        this.levels = Arrays.copyOf(builder.levels, size);
+        this.levelKeys = builder.levelIds.keySet().toArray();
+        for (Map.Entry<Object, Integer> entry : builder.levelIds.entrySet()) {
+            levelKeys[entry.getValue()] = entry.getKey();
+        }
+        this.dirty = Arrays.copyOf(builder.dirty, size);
+    }
+    
+    int getPartyCount() {
+        return parties.length;
+    }
+    
+    Party getParty(int party) {
+        return parties[party];
+    }
+    
+    int getStart(int party) {
+        return partyStart[party];
+    }
+    
+    int getEnd(int party) {
+        return partyStart[party + 1];
+    }
+    
+    int getLeader(int party) {
+        return leaders[party];
+    }
+    
+    boolean isRefresh(int party) {
+        return refresh[party];
+    }
+    
+    /**
+     * @return Index of the party the entry belongs to
+     */
+    int getPartyOf(int entry) {
+        int low = 0;
+        int high = parties.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (partyStart[mid] <= entry) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    int size() {
+        return players.length;
+    }
+    
+    Player getPlayer(int entry) {
+        return players[entry];
+    }
+    
+    double getX(int entry) {
+        return xs[entry];
+    }
+    
+    double getY(int entry) {
+        return ys[entry];
+    }
+    
+    double getZ(int entry) {
+        return zs[entry];
+    }
+    
+    int getLevel(int entry) {
+        return levels[entry];
+    }
+    
+    Object getLevelKey(int entry) {
+        return levelKeys[levels[entry]];
+    }
+    
+    boolean isDirty(int entry) {
+        return dirty[entry];
+    }
+    
+    /**
+     * Main-thread capture buffer; reused between snapshots
+     */
+    static final class Builder {
+        private Party[] parties = new Party[16];
+        private int[] partyStart = new int[17];
+        private int[] leaders = new int[16];
+        private boolean[] refresh = new boolean[16];
+        private int partyCount;
+        
+        private Player[] players = new Player[64];
+        private double[] xs = new double[64];
+        private double[] ys = new double[64];
+        private double[] zs = new double[64];
+        private int[] levels = new int[64];
+        private boolean[] dirty = new boolean[64];
+        private int size;
+        
+        private final Map<Object, Integer> levelIds = new IdentityHashMap<>();
+        
+        Builder reset() {
+            Arrays.fill(parties, 0, partyCount, null);
+            Arrays.fill(players, 0, size, null);
+            partyCount = 0;
+            size = 0;
+            levelIds.clear();
+            return this;
+        }
+        
+        /**
+         * Start the entries of a party; members added next belong to it
+         */
+        void beginParty(Party party, boolean refreshAll) {
+            if (partyCount == parties.length) {
+                int capacity = partyCount * 2;
+                parties = Arrays.copyOf(parties, capacity);
+                partyStart = Arrays.copyOf(partyStart, capacity + 1);
+                leaders = Arrays.copyOf(leaders, capacity);
+                refresh = Arrays.copyOf(refresh, capacity);
+            }
+            parties[partyCount] = party;
+            partyStart[partyCount] = size;
+            leaders[partyCount] = -1;
+            refresh[partyCount] = refreshAll;
+            partyCount++;
+            partyStart[partyCount] = size;
+        }
+        
+        void addMember(Player player, Object level, boolean leader, boolean moved) {
+            if (size == players.length) {
+                int capacity = size * 2;
+                players = Arrays.copyOf(players, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                zs = Arrays.copyOf(zs, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+                dirty = Arrays.copyOf(dirty, capacity);
+            }
+            Integer levelId = levelIds.get(level);
+            if (levelId == null) {
+                levelId = levelIds.size();
+                levelIds.put(level, levelId);
+            }
+            
+            int entry = size++;
+            players[entry] = player;
+            xs[entry] = player.x;
+            ys[entry] = player.y;
+            zs[entry] = player.z;
+            levels[entry] = levelId;
+            dirty[entry] = moved;
+            if (leader) {
+                leaders[partyCount - 1] = entry;
+            }
+            partyStart[partyCount] = size;
+        }
+        
+        /**
+         * Drop a party that ended up without members
+         */
+        void endParty() {
+            if (partyStart[partyCount - 1] == size) {
+                partyCount--;
+                parties[partyCount] = null;
+            }
+        }
+        
+        boolean isEmpty() {
+            return partyCount == 0;
+        }
+        
+        ProximitySnapshot build() {
+            return new ProximitySnapshot(this);
+        }
+    }
+}
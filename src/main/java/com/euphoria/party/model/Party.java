@@ -4,19 +4,40 @@ import cn.nukkit.Player;
 import cn.nukkit.level.Location;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+/**
+ * A party and its persisted state.
+ *
+ * Mutations happen on the main thread, but async consumers (saves,
+ * placeholders, leaderboards) read parties concurrently. Collections are
+ * concurrent, counters are atomic and other fields are volatile, so reads
+ * never block, never throw ConcurrentModificationException and never see
+ * torn values. Reads of several fields are not an atomic snapshot.
+ */
 public class Party {
     
+    /**
+     * Receives a callback whenever persisted party state changes
+     */
+    public interface ChangeListener {
+        void onPartyChanged(Party party);
+    }
+    
     // Basic party info
     private final UUID id;
-    private UUID leader;
-    private String name;
+    private volatile UUID leader;
+    private volatile String name;
     private final Set<UUID> members;
     private final Map<UUID, Long> invites;
     private final Map<UUID, Long> joinRequests;
-    private Location home;
+    private volatile Location home;
     private final long createdAt;
-    private boolean isPublic;
+    private volatile boolean isPublic;
     
     // Roles system
     private final Map<UUID, PartyRole> memberRoles;
@@ -25,48 +46,62 @@ public class Party {
     private final Set<UUID> bannedPlayers;
     
     // Statistics
-    private long totalPlayTime;
-    private int totalKills;
-    private int totalDeaths;
+    private final AtomicLong totalPlayTime;
+    private final AtomicInteger totalKills;
+    private final AtomicInteger totalDeaths;
     
     // Customization
-    private String color;
-    private String icon;
+    private volatile String color;
+    private volatile String icon;
     
     // Allies
     private final Set<UUID> allies;
     
     // Daily rewards tracking
     private final Map<UUID, Long> lastDailyReward;
-    private int consecutiveDays;
-    private long lastRewardDate;
+    private volatile int consecutiveDays;
+    private volatile long lastRewardDate;
     
     // Achievements
     private final Set<String> unlockedAchievements;
     
+    // Change tracking
+    private final AtomicLong version = new AtomicLong();
+    private volatile ChangeListener changeListener;
+    
+    // Read-only views, created once per party
+    private Set<UUID> membersView;
+    private Map<UUID, Long> invitesView;
+    private Map<UUID, Long> joinRequestsView;
+    private Set<UUID> bannedPlayersView;
+    private Set<UUID> alliesView;
+    private Map<UUID, Long> lastDailyRewardView;
+    private Set<String> unlockedAchievementsView;
+    
     public Party(UUID leader) {
         this.id = UUID.randomUUID();
         this.leader = leader;
         this.name = null;
-        this.members = new HashSet<>();
-        this.invites = new HashMap<>();
-        this.joinRequests = new HashMap<>();
+        this.members = ConcurrentHashMap.newKeySet();
+        this.invites = new ConcurrentHashMap<>();
+        this.joinRequests = new ConcurrentHashMap<>();
         this.members.add(leader);
         this.createdAt = System.currentTimeMillis();
         this.isPublic = true;
-        this.memberRoles = new HashMap<>();
+        this.memberRoles = new ConcurrentHashMap<>();
         this.memberRoles.put(leader, PartyRole.LEADER);
-        this.bannedPlayers = new HashSet<>();
-        this.totalPlayTime = 0;
-        this.totalKills = 0;
-        this.totalDeaths = 0;
+        this.bannedPlayers = ConcurrentHashMap.newKeySet();
+        this.totalPlayTime = new AtomicLong();
+        this.totalKills = new AtomicInteger();
+        this.totalDeaths = new AtomicInteger();
         this.color = "§6";
         this.icon = "★";
-        this.allies = new HashSet<>();
-        this.lastDailyReward = new HashMap<>();
+        this.allies = ConcurrentHashMap.newKeySet();
+        this.lastDailyReward = new ConcurrentHashMap<>();
         this.consecutiveDays = 0;
         this.lastRewardDate = 0;
-        this.unlockedAchievements = new HashSet<>();
+        this.unlockedAchievements = ConcurrentHashMap.newKeySet();
+        createViews();
     }
     
     // Constructor for loading from storage
@@ -74,25 +109,97 @@ public class Party {
         this.id = id;
         this.leader = leader;
         this.name = null;
-        this.members = new HashSet<>();
-        this.invites = new HashMap<>();
-        this.joinRequests = new HashMap<>();
+        this.members = ConcurrentHashMap.newKeySet();
+        this.invites = new ConcurrentHashMap<>();
+        this.joinRequests = new ConcurrentHashMap<>();
         this.members.add(leader);
         this.createdAt = System.currentTimeMillis();
         this.isPublic = true;
-        this.memberRoles = new HashMap<>();
+        this.memberRoles = new ConcurrentHashMap<>();
         this.memberRoles.put(leader, PartyRole.LEADER);
-        this.bannedPlayers = new HashSet<>();
-        this.totalPlayTime = 0;
-        this.totalKills = 0;
-        this.totalDeaths = 0;
+        this.bannedPlayers = ConcurrentHashMap.newKeySet();
+        this.totalPlayTime = new AtomicLong();
+        this.totalKills = new AtomicInteger();
+        this.totalDeaths = new AtomicInteger();
         this.color = "§6";
         this.icon = "★";
-        this.allies = new HashSet<>();
-        this.lastDailyReward = new HashMap<>();
+        this.allies = ConcurrentHashMap.newKeySet();
+        this.lastDailyReward = new ConcurrentHashMap<>();
         this.consecutiveDays = 0;
         this.lastRewardDate = 0;
-        this.unlockedAchievements = new HashSet<>();
+        this.unlockedAchievements = ConcurrentHashMap.newKeySet();
+        createViews();
+    }
+    
+    // Constructor for restoring a saved party; sets every field directly
+    public Party(PartySnapshot snapshot) {
+        this.id = snapshot.id;
+        this.leader = snapshot.leader;
+        this.name = snapshot.name;
+        this.members = ConcurrentHashMap.newKeySet();
+        this.members.addAll(snapshot.members);
+        this.invites = new ConcurrentHashMap<>();
+        this.joinRequests = new ConcurrentHashMap<>();
+        this.members.add(leader);
+        this.home = snapshot.home;
+        this.createdAt = snapshot.createdAt > 0 ? snapshot.createdAt : System.currentTimeMillis();
+        this.isPublic = true;
+        this.memberRoles = new ConcurrentHashMap<>();
+        for (UUID memberId : members) {
+            PartyRole role = snapshot.roles.get(memberId);
+            this.memberRoles.put(memberId, role != null && role != PartyRole.LEADER ? role : PartyRole.MEMBER);
+        }
+        this.memberRoles.put(leader, PartyRole.LEADER);
+        this.bannedPlayers = ConcurrentHashMap.newKeySet();
+        this.bannedPlayers.addAll(snapshot.bannedPlayers);
+        this.totalPlayTime = new AtomicLong(snapshot.totalPlayTime);
+        this.totalKills = new AtomicInteger(snapshot.totalKills);
+        this.totalDeaths = new AtomicInteger(snapshot.totalDeaths);
+        this.color = snapshot.color != null ? snapshot.color : "§6";
+        this.icon = snapshot.icon != null ? snapshot.icon : "★";
+        this.allies = ConcurrentHashMap.newKeySet();
+        this.allies.addAll(snapshot.allies);
+        this.lastDailyReward = new ConcurrentHashMap<>();
+        this.consecutiveDays = snapshot.consecutiveDays;
+        this.lastRewardDate = snapshot.lastRewardDate;
+        this.unlockedAchievements = ConcurrentHashMap.newKeySet();
+        this.unlockedAchievements.addAll(snapshot.achievements);
+        createViews();
+    }
+    
+    /**
+     * Capture the persisted state of this party
+     */
+    public PartySnapshot toSnapshot() {
+        PartySnapshot snapshot = new PartySnapshot();
+        snapshot.id = id;
+        snapshot.leader = leader;
+        snapshot.name = name;
+        snapshot.members.addAll(members);
+        snapshot.roles.putAll(memberRoles);
+        snapshot.home = home;
+        snapshot.color = color;
+        snapshot.icon = icon;
+        snapshot.bannedPlayers.addAll(bannedPlayers);
+        snapshot.allies.addAll(allies);
+        snapshot.totalPlayTime = totalPlayTime.get();
+        snapshot.totalKills = totalKills.get();
+        snapshot.totalDeaths = totalDeaths.get();
+        snapshot.achievements.addAll(unlockedAchievements);
+        snapshot.lastRewardDate = lastRewardDate;
+        snapshot.consecutiveDays = consecutiveDays;
+        snapshot.createdAt = createdAt;
+        return snapshot;
+    }
+    
+    private void createViews() {
+        this.membersView = Collections.unmodifiableSet(members);
+        this.invitesView = Collections.unmodifiableMap(invites);
+        this.joinRequestsView = Collections.unmodifiableMap(joinRequests);
+        this.bannedPlayersView = Collections.unmodifiableSet(bannedPlayers);
+        this.alliesView = Collections.unmodifiableSet(allies);
+        this.lastDailyRewardView = Collections.unmodifiableMap(lastDailyReward);
+        this.unlockedAchievementsView = Collections.unmodifiableSet(unlockedAchievements);
     }
     
     public UUID getId() {
@@ -103,12 +210,30 @@ public class Party {
         return leader;
     }
     
+    /**
+     * Copy of the members, safe to modify
+     */
     public Set<UUID> getMembers() {
         return new HashSet<>(members);
     }
     
+    /**
+     * Read-only live view of the members; never copies, and iterating it while
+     * the party changes is safe (changes may or may not be seen)
+     */
+    public Set<UUID> getMembersView() {
+        return membersView;
+    }
+    
+    /**
+     * Visit every member without copying
+     */
+    public void forEachMember(Consumer<UUID> action) {
+        members.forEach(action);
+    }
+    
     public boolean isMember(UUID playerId) {
-        return members.contains(playerId);
+        return playerId != null && members.contains(playerId);
     }
     
     public boolean isLeader(UUID playerId) {
@@ -125,6 +250,7 @@ public class Party {
         this.memberRoles.put(this.leader, PartyRole.OFFICER);
         this.leader = newLeaderId;
         this.memberRoles.put(newLeaderId, PartyRole.LEADER);
+        markChanged();
         return true;
     }
     
@@ -135,6 +261,7 @@ public class Party {
     
     public void setName(String name) {
         this.name = name;
+        markChanged();
     }
     
     public boolean hasName() {
@@ -143,12 +270,13 @@ public class Party {
     
     // Role methods
     public PartyRole getRole(UUID playerId) {
-        return memberRoles.getOrDefault(playerId, PartyRole.MEMBER);
+        return playerId != null ? memberRoles.getOrDefault(playerId, PartyRole.MEMBER) : PartyRole.MEMBER;
     }
     
     public void setRole(UUID playerId, PartyRole role) {
         if (isMember(playerId) && !isLeader(playerId)) {
             memberRoles.put(playerId, role);
+            markChanged();
         }
     }
     
@@ -159,6 +287,7 @@ public class Party {
     
     public void setPublic(boolean isPublic) {
         this.isPublic = isPublic;
+        markChanged();
     }
     
     // Join request methods
@@ -167,7 +296,7 @@ public class Party {
     }
     
     public boolean hasJoinRequest(UUID playerId) {
-        return joinRequests.containsKey(playerId);
+        return playerId != null && joinRequests.containsKey(playerId);
     }
     
     public void removeJoinRequest(UUID playerId) {
@@ -178,7 +307,21 @@ public class Party {
         return new HashMap<>(joinRequests);
     }
     
+    /**
+     * Read-only live view of the join requests (player -> request time)
+     */
+    public Map<UUID, Long> getJoinRequestsView() {
+        return joinRequestsView;
+    }
+    
+    public int getJoinRequestCount() {
+        return joinRequests.size();
+    }
+    
     public void cleanExpiredJoinRequests(long expirationTime) {
+        if (joinRequests.isEmpty()) {
+            return;
+        }
         long currentTime = System.currentTimeMillis();
         joinRequests.entrySet().removeIf(entry -> (currentTime - entry.getValue()) > expirationTime);
     }
@@ -190,43 +333,60 @@ public class Party {
         invites.remove(playerId);
         joinRequests.remove(playerId);
         memberRoles.remove(playerId);
+        markChanged();
     }
     
     public void unbanPlayer(UUID playerId) {
-        bannedPlayers.remove(playerId);
+        if (bannedPlayers.remove(playerId)) {
+            markChanged();
+        }
     }
     
     public boolean isBanned(UUID playerId) {
-        return bannedPlayers.contains(playerId);
+        return playerId != null && bannedPlayers.contains(playerId);
     }
     
     public Set<UUID> getBannedPlayers() {
         return new HashSet<>(bannedPlayers);
     }
     
+    /**
+     * Read-only live view of the banned players
+     */
+    public Set<UUID> getBannedPlayersView() {
+        return bannedPlayersView;
+    }
+    
+    public int getBannedCount() {
+        return bannedPlayers.size();
+    }
+    
     // Statistics methods
     public void addPlayTime(long milliseconds) {
-        this.totalPlayTime += milliseconds;
+        this.totalPlayTime.addAndGet(milliseconds);
+        markChanged();
     }
     
     public void incrementKills() {
-        this.totalKills++;
+        this.totalKills.incrementAndGet();
+        markChanged();
     }
     
     public void incrementDeaths() {
-        this.totalDeaths++;
+        this.totalDeaths.incrementAndGet();
+        markChanged();
     }
     
     public long getTotalPlayTime() {
-        return totalPlayTime;
+        return totalPlayTime.get();
     }
     
     public int getTotalKills() {
-        return totalKills;
+        return totalKills.get();
     }
     
     public int getTotalDeaths() {
-        return totalDeaths;
+        return totalDeaths.get();
     }
     
     public void addMember(UUID playerId) {
@@ -236,6 +396,7 @@ public class Party {
         if (!memberRoles.containsKey(playerId)) {
             memberRoles.put(playerId, PartyRole.MEMBER);
         }
+        markChanged();
     }
     
     public void removeMember(UUID playerId) {
@@ -243,6 +404,7 @@ public class Party {
         if (!isLeader(playerId)) {
             memberRoles.remove(playerId);
         }
+        markChanged();
     }
     
     public int getMemberCount() {
@@ -254,11 +416,11 @@ public class Party {
     }
     
     public boolean hasInvite(UUID playerId) {
-        return invites.containsKey(playerId);
+        return playerId != null && invites.containsKey(playerId);
     }
     
     public boolean isInviteExpired(UUID playerId, long expirationTime) {
-        Long inviteTime = invites.get(playerId);
+        Long inviteTime = playerId != null ? invites.get(playerId) : null;
         if (inviteTime == null) {
             return true;
         }
@@ -266,8 +428,24 @@ public class Party {
     }
     
     public void cleanExpiredInvites(long expirationTime) {
+        cleanExpiredInvites(expirationTime, null);
+    }
+    
+    /**
+     * Remove expired invites, reporting each removed player to the callback (may be null)
+     */
+    public void cleanExpiredInvites(long expirationTime, Consumer<UUID> onExpired) {
+        if (invites.isEmpty()) {
+            return;
+        }
         long currentTime = System.currentTimeMillis();
-        invites.entrySet().removeIf(entry -> (currentTime - entry.getValue()) > expirationTime);
+        for (Map.Entry<UUID, Long> entry : invites.entrySet()) {
+            if ((currentTime - entry.getValue()) > expirationTime && invites.remove(entry.getKey(), entry.getValue())) {
+                if (onExpired != null) {
+                    onExpired.accept(entry.getKey());
+                }
+            }
+        }
     }
     
     public void removeInvite(UUID playerId) {
@@ -278,12 +456,31 @@ public class Party {
         return new HashMap<>(invites);
     }
     
+    /**
+     * Read-only live view of the pending invites (player -> invite time)
+     */
+    public Map<UUID, Long> getInvitesView() {
+        return invitesView;
+    }
+    
+    /**
+     * Visit every pending invite without copying
+     */
+    public void forEachInvite(BiConsumer<UUID, Long> action) {
+        invites.forEach(action);
+    }
+    
+    public int getInviteCount() {
+        return invites.size();
+    }
+    
     public Location getHome() {
         return home;
     }
     
     public void setHome(Location home) {
         this.home = home;
+        markChanged();
     }
     
     public boolean hasHome() {
@@ -301,6 +498,7 @@ public class Party {
     
     public void setColor(String color) {
         this.color = color;
+        markChanged();
     }
     
     public String getIcon() {
@@ -309,28 +507,44 @@ public class Party {
     
     public void setIcon(String icon) {
         this.icon = icon;
+        markChanged();
     }
     
     // Ally methods
     public void addAlly(UUID partyId) {
-        allies.add(partyId);
+        if (allies.add(partyId)) {
+            markChanged();
+        }
     }
     
     public void removeAlly(UUID partyId) {
-        allies.remove(partyId);
+        if (allies.remove(partyId)) {
+            markChanged();
+        }
     }
     
     public boolean isAlly(UUID partyId) {
-        return allies.contains(partyId);
+        return partyId != null && allies.contains(partyId);
     }
     
     public Set<UUID> getAllies() {
         return new HashSet<>(allies);
     }
     
+    /**
+     * Read-only live view of the allied party ids
+     */
+    public Set<UUID> getAlliesView() {
+        return alliesView;
+    }
+    
+    public int getAllyCount() {
+        return allies.size();
+    }
+    
     // Daily reward methods
     public boolean canClaimDailyReward(UUID playerId) {
-        Long lastClaim = lastDailyReward.get(playerId);
+        Long lastClaim = playerId != null ? lastDailyReward.get(playerId) : null;
         if (lastClaim == null) {
             return true;
         }
@@ -354,6 +568,7 @@ public class Party {
         }
         
         lastRewardDate = System.currentTimeMillis();
+        markChanged();
     }
     
     public int getConsecutiveDays() {
@@ -364,20 +579,60 @@ public class Party {
         return new HashMap<>(lastDailyReward);
     }
     
+    /**
+     * Read-only live view of the last reward claim per player
+     */
+    public Map<UUID, Long> getLastDailyRewardView() {
+        return lastDailyRewardView;
+    }
+    
     // Achievement methods
     public void unlockAchievement(String achievementId) {
-        unlockedAchievements.add(achievementId);
+        if (unlockedAchievements.add(achievementId)) {
+            markChanged();
+        }
     }
     
     public boolean hasAchievement(String achievementId) {
-        return unlockedAchievements.contains(achievementId);
+        return achievementId != null && unlockedAchievements.contains(achievementId);
     }
     
     public Set<String> getUnlockedAchievements() {
         return new HashSet<>(unlockedAchievements);
     }
     
+    /**
+     * Read-only live view of the unlocked achievement ids
+     */
+    public Set<String> getUnlockedAchievementsView() {
+        return unlockedAchievementsView;
+    }
+    
     public int getAchievementCount() {
         return unlockedAchievements.size();
     }
+    
+    // Change tracking methods
+    
+    /**
+     * Get the modification counter; it increases on every change to persisted state
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Set the listener notified after every change to persisted state
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+    
+    private void markChanged() {
+        version.incrementAndGet();
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onPartyChanged(this);
+        }
+    }
 }
@@ -1,18 +1,23 @@
 package com.euphoria.party.model;
 
+/**
+ * Achievement definition: unlocked once the watched stat reaches the requirement
+ */
 public class PartyAchievement {
     
     private final String id;
     private final String name;
     private final String description;
-    private final int requirement;
+    private final PartyStat stat;
+    private final double requirement;
     private final String rewardType;
     private final int rewardAmount;
     
-    public PartyAchievement(String id, String name, String description, int requirement, String rewardType, int rewardAmount) {
+    public PartyAchievement(String id, String name, String description, PartyStat stat, double requirement, String rewardType, int rewardAmount) {
         this.id = id;
         this.name = name;
         this.description = description;
+        this.stat = stat;
         this.requirement = requirement;
         this.rewardType = rewardType;
         this.rewardAmount = rewardAmount;
@@ -30,7 +35,11 @@ public class PartyAchievement {
         return description;
     }
     
-    public int getRequirement() {
+    public PartyStat getStat() {
+        return stat;
+    }
+    
+    public double getRequirement() {
         return requirement;
     }
     
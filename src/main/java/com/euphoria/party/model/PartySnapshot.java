@@ -0,0 +1,30 @@
+package com.euphoria.party.model;
+
+import cn.nukkit.level.Location;
+
+import java.util.*;
+
+/**
+ * Persisted state of a party, used to save a party and to restore it
+ * with {@link Party#Party(PartySnapshot)} without replaying mutators.
+ */
+public class PartySnapshot {
+    
+    public UUID id;
+    public UUID leader;
+    public String name;
+    public Set<UUID> members = new HashSet<>();
+    public Map<UUID, PartyRole> roles = new HashMap<>();
+    public Location home;
+    public String color;
+    public String icon;
+    public Set<UUID> bannedPlayers = new HashSet<>();
+    public Set<UUID> allies = new HashSet<>();
+    public long totalPlayTime;
+    public int totalKills;
+    public int totalDeaths;
+    public Set<String> achievements = new HashSet<>();
+    public long lastRewardDate;
+    public int consecutiveDays;
+    public long createdAt;
+}
@@ -0,0 +1,35 @@
+package com.euphoria.party.model;
+
+/**
+ * Party statistics that achievements can watch
+ */
+public enum PartyStat {
+    MEMBERS,
+    PLAYTIME,  // Milliseconds
+    KILLS,
+    KD,  // Kills per death, 0 until the first death
+    STREAK;  // Consecutive daily reward days
+    
+    public double read(Party party) {
+        switch (this) {
+            case MEMBERS: return party.getMemberCount();
+            case PLAYTIME: return party.getTotalPlayTime();
+            case KILLS: return party.getTotalKills();
+            case KD: return party.getTotalDeaths() > 0 ? (double) party.getTotalKills() / party.getTotalDeaths() : 0;
+            case STREAK: return party.getConsecutiveDays();
+            default: return 0;
+        }
+    }
+    
+    /**
+     * @return The stat with the given config name, or null if unknown
+     */
+    public static PartyStat fromName(String name) {
+        for (PartyStat stat : values()) {
+            if (stat.name().equalsIgnoreCase(name)) {
+                return stat;
+            }
+        }
+        return null;
+    }
+}
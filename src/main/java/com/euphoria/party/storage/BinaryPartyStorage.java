@@ -0,0 +1,503 @@
+package com.euphoria.party.storage;
+
+import com.euphoria.party.model.Party;
+import com.euphoria.party.model.PartyRole;
+import com.euphoria.party.model.PartySnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Party storage in a compact, versioned binary snapshot (parties.dat).
+ *
+ * Layout: magic, format version, a string table holding every level name,
+ * color, icon, party name and achievement id once, the record count and a
+ * CRC32 of all of that, then the party records. A header that fails its
+ * checksum rejects the file, since every record depends on the string table.
+ * UUIDs are stored as two longs and counters as varints. Each record starts
+ * with a marker and its length and is followed by a CRC32 of its bytes. A
+ * record with a bad length or checksum is skipped by scanning ahead to the
+ * next marker that starts a valid record, so the damage stays local. The file is
+ * written through a FileChannel to a temporary file and moved into place;
+ * the previous snapshot is kept as parties.dat.backup by renaming it rather
+ * than copying it.
+ */
+public class BinaryPartyStorage implements PartyStorage {
+    
+    private static final int MAGIC = 0x45504454;  // "EPDT"
+    private static final int RECORD_MARK = 0x45505243;  // "EPRC", starts every record since version 2
+    private static final int VERSION = 2;
+    private static final PartyRole[] ROLES = PartyRole.values();
+    
+    private final File dataFile;
+    private final File backupFile;
+    private final Map<UUID, LocationData> homeDataCache = new ConcurrentHashMap<>();
+    
+    public BinaryPartyStorage(File dataFolder) {
+        this.dataFile = new File(dataFolder, "parties.dat");
+        this.backupFile = new File(dataFolder, "parties.dat.backup");
+    }
+    
+    @Override
+    public Map<UUID, Party> loadParties() {
+        Map<UUID, Party> parties = new ConcurrentHashMap<>();
+        homeDataCache.clear();
+        
+        File file = dataFile.exists() ? dataFile : backupFile;
+        if (!file.exists()) {
+            return parties;
+        }
+        
+        try {
+            readParties(file, parties);
+        } catch (IOException e) {
+            System.err.println("Error reading party data file " + file.getName() + ": " + e.getMessage());
+            if (file == dataFile && backupFile.exists()) {
+                System.err.println("Attempting to load from backup file...");
+                parties.clear();
+                homeDataCache.clear();
+                try {
+                    readParties(backupFile, parties);
+                    System.err.println("Successfully loaded " + parties.size() + " parties from backup");
+                } catch (IOException ex) {
+                    System.err.println("Backup file also corrupted: " + ex.getMessage());
+                }
+            }
+        }
+        
+        return parties;
+    }
+    
+    @Override
+    public LocationData getHomeData(UUID partyId) {
+        return homeDataCache.get(partyId);
+    }
+    
+    @Override
+    public boolean saveChanges(Map<UUID, Party> parties, Collection<Party> changed, Collection<UUID> removed) {
+        // Records are not addressable in place, so any change rewrites the snapshot
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return true;
+        }
+        return writeParties(parties);
+    }
+    
+    private void readParties(File file, Map<UUID, Party> parties) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read the whole file
+            }
+            buffer.flip();
+        }
+        
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a party snapshot");
+            }
+            int version = readVarInt(buffer);
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported party snapshot version " + version);
+            }
+            
+            String[] strings = new String[readVarInt(buffer)];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readVarInt(buffer);
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Corrupted party snapshot string table");
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int count = readVarInt(buffer);
+            
+            // The string table is shared by every record, so it must be intact
+            if (version >= 2) {
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(0, buffer.position()));
+                if ((int) crc.getValue() != buffer.getInt()) {
+                    throw new IOException("Party snapshot header failed its checksum");
+                }
+            }
+            
+            // Records are verified and sliced here and decoded in parallel
+            ParallelPartyLoader<ByteBuffer> loader = new ParallelPartyLoader<>(record -> {
+                try {
+                    Party party = decodeRecord(record, strings);
+                    parties.put(party.getId(), party);
+                } catch (RuntimeException e) {
+                    System.err.println("Error loading party record, skipping: " + e);
+                }
+            });
+            int loaded = 0;
+            int damaged = 0;
+            try {
+                while (loaded < count && buffer.hasRemaining()) {
+                    int start = buffer.position();
+                    ByteBuffer record = nextRecord(buffer, version);
+                    if (record != null) {
+                        loader.add(record);
+                        loaded++;
+                        continue;
+                    }
+                    damaged++;
+                    if (version < 2) {
+                        // Without record markers there is nothing to resume from; fall back to the backup
+                        throw new IOException("Corrupted party record " + loaded + " in version 1 snapshot");
+                    }
+                    if (!seekRecordMark(buffer, start + 1)) {
+                        break;
+                    }
+                }
+            } finally {
+                loader.finish();
+            }
+            if (damaged > 0 || loaded < count) {
+                System.err.println("Skipped damaged party data: " + damaged + " damaged region(s), "
+                    + (count - loaded) + " of " + count + " parties not loaded");
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Truncated or corrupted party snapshot", e);
+        }
+    }
+    
+    /**
+     * Read and verify the record at the buffer's position
+     * @return The record payload, with the buffer moved past the record,
+     *         or null if the marker, length or checksum is wrong
+     */
+    private static ByteBuffer nextRecord(ByteBuffer buffer, int version) {
+        try {
+            if (version >= 2 && buffer.getInt() != RECORD_MARK) {
+                return null;
+            }
+            int length = readVarInt(buffer);
+            if (length < 0 || length > buffer.remaining() - 4) {
+                return null;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            buffer.position(buffer.position() + length);
+            return (int) crc.getValue() == buffer.getInt() ? payload : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Move the buffer to the next record marker at or after from
+     * @return false if there is none
+     */
+    private static boolean seekRecordMark(ByteBuffer buffer, int from) {
+        for (int i = from; i <= buffer.limit() - 4; i++) {
+            if (buffer.getInt(i) == RECORD_MARK) {
+                buffer.position(i);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Decode one verified record payload
+     */
+    private Party decodeRecord(ByteBuffer record, String[] strings) {
+        PartySnapshot snapshot = new PartySnapshot();
+        snapshot.id = readUuid(record);
+        snapshot.leader = readUuid(record);
+        snapshot.name = readString(record, strings);
+        snapshot.color = readString(record, strings);
+        snapshot.icon = readString(record, strings);
+        
+        int members = readVarInt(record);
+        for (int i = 0; i < members; i++) {
+            UUID memberId = readUuid(record);
+            snapshot.members.add(memberId);
+            snapshot.roles.put(memberId, ROLES[record.get()]);
+        }
+        int banned = readVarInt(record);
+        for (int i = 0; i < banned; i++) {
+            snapshot.bannedPlayers.add(readUuid(record));
+        }
+        int allies = readVarInt(record);
+        for (int i = 0; i < allies; i++) {
+            snapshot.allies.add(readUuid(record));
+        }
+        
+        snapshot.totalPlayTime = readVarLong(record);
+        snapshot.totalKills = readVarInt(record);
+        snapshot.totalDeaths = readVarInt(record);
+        
+        int achievements = readVarInt(record);
+        for (int i = 0; i < achievements; i++) {
+            snapshot.achievements.add(readString(record, strings));
+        }
+        
+        snapshot.lastRewardDate = readVarLong(record);
+        snapshot.consecutiveDays = readVarInt(record);
+        snapshot.createdAt = readVarLong(record);
+        
+        if (record.get() != 0) {
+            LocationData home = new LocationData();
+            home.level = readString(record, strings);
+            home.x = record.getDouble();
+            home.y = record.getDouble();
+            home.z = record.getDouble();
+            home.yaw = record.getFloat();
+            home.pitch = record.getFloat();
+            homeDataCache.put(snapshot.id, home);
+        }
+        
+        return new Party(snapshot);
+    }
+    
+    private boolean writeParties(Map<UUID, Party> parties) {
+        try {
+            if (!dataFile.getParentFile().exists()) {
+                dataFile.getParentFile().mkdirs();
+            }
+            
+            // Encode records first; the string table they reference goes in front of them
+            Map<String, Integer> stringIds = new HashMap<>();
+            List<String> strings = new ArrayList<>();
+            Output body = new Output(64 * 1024);
+            Output record = new Output(512);
+            CRC32 crc = new CRC32();
+            int count = 0;
+            for (Party party : parties.values()) {
+                if (party == null) {
+                    continue;
+                }
+                record.reset();
+                encodeRecord(party.toSnapshot(), record, stringIds, strings);
+                crc.reset();
+                crc.update(record.bytes, 0, record.size);
+                body.writeInt(RECORD_MARK);
+                body.writeVarInt(record.size);
+                body.write(record.bytes, 0, record.size);
+                body.writeInt((int) crc.getValue());
+                count++;
+            }
+            
+            Output header = new Output(4096);
+            header.writeInt(MAGIC);
+            header.writeVarInt(VERSION);
+            header.writeVarInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                header.writeVarInt(bytes.length);
+                header.write(bytes, 0, bytes.length);
+            }
+            header.writeVarInt(count);
+            crc.reset();
+            crc.update(header.bytes, 0, header.size);
+            header.writeInt((int) crc.getValue());
+            
+            // Write to temporary file first, then move it into place
+            File tempFile = new File(dataFile.getParentFile(), "parties.dat.tmp");
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer[] buffers = {header.toBuffer(), body.toBuffer()};
+                while (buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            }
+            
+            if (dataFile.exists()) {
+                Files.move(dataFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+            
+        } catch (IOException e) {
+            System.err.println("Critical error saving party data: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private void encodeRecord(PartySnapshot snapshot, Output out, Map<String, Integer> stringIds, List<String> strings) {
+        writeUuid(out, snapshot.id);
+        writeUuid(out, snapshot.leader);
+        writeString(out, snapshot.name, stringIds, strings);
+        writeString(out, snapshot.color, stringIds, strings);
+        writeString(out, snapshot.icon, stringIds, strings);
+        
+        out.writeVarInt(snapshot.members.size());
+        for (UUID memberId : snapshot.members) {
+            writeUuid(out, memberId);
+            out.writeByte(snapshot.roles.getOrDefault(memberId, PartyRole.MEMBER).ordinal());
+        }
+        out.writeVarInt(snapshot.bannedPlayers.size());
+        for (UUID banned : snapshot.bannedPlayers) {
+            writeUuid(out, banned);
+        }
+        out.writeVarInt(snapshot.allies.size());
+        for (UUID ally : snapshot.allies) {
+            writeUuid(out, ally);
+        }
+        
+        out.writeVarLong(snapshot.totalPlayTime);
+        out.writeVarInt(snapshot.totalKills);
+        out.writeVarInt(snapshot.totalDeaths);
+        
+        out.writeVarInt(snapshot.achievements.size());
+        for (String achievement : snapshot.achievements) {
+            writeString(out, achievement, stringIds, strings);
+        }
+        
+        out.writeVarLong(snapshot.lastRewardDate);
+        out.writeVarInt(snapshot.consecutiveDays);
+        out.writeVarLong(snapshot.createdAt);
+        
+        if (snapshot.home != null && snapshot.home.getLevel() != null) {
+            LocationData home = LocationData.fromLocation(snapshot.home);
+            out.writeByte(1);
+            writeString(out, home.level, stringIds, strings);
+            out.writeDouble(home.x);
+            out.writeDouble(home.y);
+            out.writeDouble(home.z);
+            out.writeFloat(home.yaw);
+            out.writeFloat(home.pitch);
+        } else {
+            out.writeByte(0);
+        }
+    }
+    
+    private static void writeUuid(Output out, UUID uuid) {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+    
+    private static UUID readUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+    
+    /**
+     * Strings are written as 1-based string table index, 0 for null
+     */
+    private static void writeString(Output out, String value, Map<String, Integer> stringIds, List<String> strings) {
+        if (value == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            strings.add(value);
+            id = strings.size();
+            stringIds.put(value, id);
+        }
+        out.writeVarInt(id);
+    }
+    
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        int id = readVarInt(buffer);
+        return id == 0 ? null : strings[id - 1];
+    }
+    
+    private static int readVarInt(ByteBuffer buffer) {
+        return (int) readVarLong(buffer);
+    }
+    
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+    
+    /**
+     * Growable big-endian byte buffer for encoding
+     */
+    private static class Output {
+        private byte[] bytes;
+        private int size;
+        
+        Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+        
+        void reset() {
+            size = 0;
+        }
+        
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+        
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+        
+        void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+        
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+        
+        void writeDouble(double value) {
+            writeLong(Double.doubleToLongBits(value));
+        }
+        
+        void writeFloat(float value) {
+            writeInt(Float.floatToIntBits(value));
+        }
+        
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xffffffffL);
+        }
+        
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+        
+        ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+        
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
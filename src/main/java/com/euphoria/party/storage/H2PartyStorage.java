@@ -0,0 +1,265 @@
+package com.euphoria.party.storage;
+
+import cn.nukkit.plugin.PluginLogger;
+import com.euphoria.party.model.Party;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Party storage backed by an embedded H2 database.
+ *
+ * Every party is stored as one row holding its serialized data. On save only
+ * rows whose content changed since the last load or save are upserted, and
+ * rows of parties that no longer exist are deleted, all in one transaction.
+ * An existing parties.json is migrated into the database on first start.
+ */
+public class H2PartyStorage implements PartyStorage {
+    
+    private static final String CREATE_TABLE =
+        "CREATE TABLE IF NOT EXISTS parties (" +
+        "id VARCHAR(36) PRIMARY KEY, " +
+        "data CLOB NOT NULL, " +
+        "updated_at BIGINT NOT NULL)";
+    private static final String UPSERT = "MERGE INTO parties (id, data, updated_at) KEY (id) VALUES (?, ?, ?)";
+    private static final String DELETE = "DELETE FROM parties WHERE id = ?";
+    private static final String SELECT_ALL = "SELECT id, data FROM parties";
+    
+    private final File dataFolder;
+    private final File databaseFile;
+    private final Gson gson;
+    private final PluginLogger logger;
+    private final Map<UUID, LocationData> homeDataCache = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> storedHashes = new ConcurrentHashMap<>();  // Content hash of each stored row
+    private Connection connection;
+    
+    public H2PartyStorage(File dataFolder, PluginLogger logger) {
+        this.dataFolder = dataFolder;
+        this.databaseFile = new File(dataFolder, "parties");
+        this.gson = new Gson();
+        this.logger = logger;
+    }
+    
+    @Override
+    public synchronized Map<UUID, Party> loadParties() {
+        Map<UUID, Party> parties = new ConcurrentHashMap<>();
+        homeDataCache.clear();
+        storedHashes.clear();
+        
+        // Rows are fetched on this thread and parsed in parallel
+        ParallelPartyLoader<String> loader = new ParallelPartyLoader<>(json -> {
+            try {
+                PartyData data = gson.fromJson(json, PartyData.class);
+                if (data == null) {
+                    System.err.println("Error loading party data, skipping an empty row");
+                    return;
+                }
+                Party party = data.toParty();
+                if (party != null) {
+                    parties.put(party.getId(), party);
+                    storedHashes.put(party.getId(), hash(json));
+                    
+                    // Cache location data for reconstruction
+                    if (data.getHomeData() != null) {
+                        homeDataCache.put(party.getId(), data.getHomeData());
+                    }
+                }
+            } catch (JsonSyntaxException | IllegalArgumentException e) {
+                System.err.println("Error loading party data, skipping: " + e.getMessage());
+            }
+        });
+        
+        try {
+            Connection conn = getConnection();
+            migrateFromJson(conn);
+            
+            try (Statement statement = conn.createStatement();
+                 ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+                while (rows.next()) {
+                    loader.add(rows.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading party database: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            loader.finish();
+        }
+        
+        return parties;
+    }
+    
+    @Override
+    public synchronized LocationData getHomeData(UUID partyId) {
+        return homeDataCache.get(partyId);
+    }
+    
+    @Override
+    public synchronized boolean saveChanges(Map<UUID, Party> parties, Collection<Party> changed, Collection<UUID> removed) {
+        Map<UUID, String> rows = new HashMap<>();
+        Map<UUID, Long> rowHashes = new HashMap<>();
+        for (Party party : changed) {
+            String json = gson.toJson(PartyData.fromParty(party));
+            long hash = hash(json);
+            Long stored = storedHashes.get(party.getId());
+            if (stored == null || stored != hash) {
+                rows.put(party.getId(), json);
+                rowHashes.put(party.getId(), hash);
+            }
+        }
+        
+        List<UUID> deleted = new ArrayList<>();
+        for (UUID partyId : removed) {
+            if (storedHashes.containsKey(partyId)) {
+                deleted.add(partyId);
+            }
+        }
+        
+        if (rows.isEmpty() && deleted.isEmpty()) {
+            return true;
+        }
+        
+        try {
+            writeChanges(getConnection(), rows, deleted);
+            storedHashes.putAll(rowHashes);
+            for (UUID partyId : deleted) {
+                storedHashes.remove(partyId);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Critical error saving party data: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing party database: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+    
+    private void writeChanges(Connection conn, Map<UUID, String> changed, Collection<UUID> removed) throws SQLException {
+        long now = System.currentTimeMillis();
+        conn.setAutoCommit(false);
+        try {
+            if (!changed.isEmpty()) {
+                try (PreparedStatement upsert = conn.prepareStatement(UPSERT)) {
+                    for (Map.Entry<UUID, String> entry : changed.entrySet()) {
+                        upsert.setString(1, entry.getKey().toString());
+                        upsert.setString(2, entry.getValue());
+                        upsert.setLong(3, now);
+                        upsert.addBatch();
+                    }
+                    upsert.executeBatch();
+                }
+            }
+            
+            if (!removed.isEmpty()) {
+                try (PreparedStatement delete = conn.prepareStatement(DELETE)) {
+                    for (UUID partyId : removed) {
+                        delete.setString(1, partyId.toString());
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+                }
+            }
+            
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * One-shot import of parties.json into an empty database.
+     * The JSON file is renamed afterwards so the import never runs twice.
+     */
+    private void migrateFromJson(Connection conn) throws SQLException {
+        File jsonFile = new File(dataFolder, "parties.json");
+        if (!jsonFile.exists()) {
+            return;
+        }
+        
+        try (Statement statement = conn.createStatement();
+             ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM parties")) {
+            if (count.next() && count.getLong(1) > 0) {
+                return;
+            }
+        }
+        
+        List<PartyData> legacy;
+        try {
+            legacy = new JsonPartyStorage(dataFolder).readPartyData();
+        } catch (IOException | JsonSyntaxException e) {
+            System.err.println("Could not migrate parties.json, keeping it in place: " + e.getMessage());
+            return;
+        }
+        
+        Map<UUID, String> rows = new HashMap<>();
+        for (PartyData data : legacy) {
+            if (data.id == null) {
+                continue;  // Corrupted entry
+            }
+            try {
+                rows.put(UUID.fromString(data.id), gson.toJson(data));
+            } catch (IllegalArgumentException e) {
+                // Skip corrupted entries
+            }
+        }
+        
+        writeChanges(conn, rows, Collections.emptyList());
+        
+        File migrated = new File(dataFolder, "parties.json.migrated");
+        if (!jsonFile.renameTo(migrated)) {
+            System.err.println("Warning: Could not rename parties.json after migration");
+        }
+        logger.info("Migrated " + rows.size() + " parties from parties.json to the H2 database");
+    }
+    
+    private Connection getConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            if (!dataFolder.exists()) {
+                dataFolder.mkdirs();
+            }
+            // Use the driver directly; DriverManager can't see drivers loaded by the plugin class loader
+            Properties properties = new Properties();
+            connection = new org.h2.Driver().connect("jdbc:h2:file:" + databaseFile.getAbsolutePath(), properties);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+        }
+        return connection;
+    }
+    
+    /**
+     * 64-bit FNV-1a hash of the serialized row, used to detect changed parties
+     */
+    private static long hash(String json) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : json.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
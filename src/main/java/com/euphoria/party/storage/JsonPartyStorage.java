@@ -0,0 +1,252 @@
+package com.euphoria.party.storage;
+
+import cn.nukkit.level.Location;
+import com.euphoria.party.model.Party;
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Party storage in a single JSON array file (parties.json).
+ *
+ * The file is streamed: on load records are parsed one at a time and
+ * converted in batches on the fork-join pool while parsing continues, and on
+ * save each party is converted and written straight to the output, so no
+ * intermediate list of the whole data set is ever held in memory.
+ */
+public class JsonPartyStorage implements PartyStorage {
+    
+    private final File dataFile;
+    private final Gson gson;
+    private final Map<UUID, LocationData> homeDataCache = new ConcurrentHashMap<>();
+    
+    public JsonPartyStorage(File dataFolder) {
+        this(dataFolder, "parties.json");
+    }
+    
+    public JsonPartyStorage(File dataFolder, String fileName) {
+        this.dataFile = new File(dataFolder, fileName);
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(Location.class, new LocationAdapter())
+                .create();
+    }
+    
+    @Override
+    public Map<UUID, Party> loadParties() {
+        Map<UUID, Party> parties = new ConcurrentHashMap<>();
+        homeDataCache.clear();
+        
+        if (!dataFile.exists()) {
+            return parties;
+        }
+        
+        try {
+            readParallel(dataFile, data -> {
+                try {
+                    addParty(parties, data);
+                } catch (Exception e) {
+                    System.err.println("Error loading party data, skipping: " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            // A damaged file is never loaded partially; the backup is used instead
+            System.err.println("Error reading party data file: " + e.getMessage());
+            e.printStackTrace();
+            
+            // Try to load from backup
+            File backupFile = new File(dataFile.getParentFile(), dataFile.getName() + ".backup");
+            if (backupFile.exists()) {
+                System.err.println("Attempting to load from backup file...");
+                parties.clear();
+                homeDataCache.clear();
+                try {
+                    readParallel(backupFile, data -> {
+                        try {
+                            addParty(parties, data);
+                        } catch (Exception ex) {
+                            // Skip corrupted entries
+                        }
+                    });
+                    System.err.println("Successfully loaded " + parties.size() + " parties from backup");
+                } catch (IOException ex) {
+                    System.err.println("Backup file also corrupted: " + ex.getMessage());
+                }
+            }
+        }
+        
+        return parties;
+    }
+    
+    /**
+     * Load every party of the file, failing instead of skipping: a damaged
+     * file or record throws, and the backup is never used
+     * @throws IOException if the file can't be read or any record is invalid
+     */
+    public Map<UUID, Party> loadPartiesStrictly() throws IOException {
+        Map<UUID, Party> parties = new HashMap<>();
+        homeDataCache.clear();
+        try {
+            readParties(dataFile, data -> addParty(parties, data));
+        } catch (RuntimeException e) {
+            homeDataCache.clear();
+            throw new IOException("Invalid party record in " + dataFile.getName() + ": " + e.getMessage(), e);
+        }
+        return parties;
+    }
+    
+    /**
+     * Read the raw party records from parties.json without converting them
+     */
+    List<PartyData> readPartyData() throws IOException {
+        List<PartyData> partyDataList = new ArrayList<>();
+        readParties(dataFile, partyDataList::add);
+        return partyDataList;
+    }
+    
+    /**
+     * Stream the records of a party file to the consumer one at a time
+     *
+     * @throws IOException if the file can't be read, is malformed or is truncated
+     */
+    private void readParties(File file, Consumer<PartyData> consumer) throws IOException {
+        try (JsonReader reader = new JsonReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            JsonToken first;
+            try {
+                first = reader.peek();
+            } catch (EOFException e) {
+                return;  // Empty file
+            }
+            if (first == JsonToken.NULL) {
+                return;
+            }
+            
+            // Truncation anywhere past the first token means a damaged file, not an empty one
+            reader.beginArray();
+            while (reader.hasNext()) {
+                PartyData data = gson.fromJson(reader, PartyData.class);
+                if (data != null) {
+                    consumer.accept(data);
+                }
+            }
+            reader.endArray();
+            reader.peek();  // Rejects anything after the array
+        } catch (EOFException e) {
+            throw new IOException("Party data file " + file.getName() + " is truncated", e);
+        } catch (MalformedJsonException | JsonParseException e) {
+            throw new IOException("Party data file " + file.getName() + " is corrupted", e);
+        }
+    }
+    
+    /**
+     * Stream a party file, converting its records in parallel; returns once all are converted
+     */
+    private void readParallel(File file, ParallelPartyLoader.Converter<PartyData> converter) throws IOException {
+        ParallelPartyLoader<PartyData> loader = new ParallelPartyLoader<>(converter);
+        try {
+            readParties(file, loader::add);
+        } finally {
+            loader.finish();
+        }
+    }
+    
+    private void addParty(Map<UUID, Party> parties, PartyData data) {
+        Party party = data.toParty();
+        if (party != null) {
+            parties.put(party.getId(), party);
+            
+            // Cache location data for reconstruction
+            if (data.getHomeData() != null) {
+                homeDataCache.put(party.getId(), data.getHomeData());
+            }
+        }
+    }
+    
+    @Override
+    public LocationData getHomeData(UUID partyId) {
+        return homeDataCache.get(partyId);
+    }
+    
+    @Override
+    public boolean saveChanges(Map<UUID, Party> parties, Collection<Party> changed, Collection<UUID> removed) {
+        // A single file can't be patched in place, so any change rewrites it
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return true;
+        }
+        return writeParties(parties);
+    }
+    
+    private boolean writeParties(Map<UUID, Party> parties) {
+        try {
+            if (!dataFile.getParentFile().exists()) {
+                dataFile.getParentFile().mkdirs();
+            }
+            
+            // Create backup before saving
+            if (dataFile.exists()) {
+                File backupFile = new File(dataFile.getParentFile(), dataFile.getName() + ".backup");
+                try {
+                    java.nio.file.Files.copy(dataFile.toPath(), backupFile.toPath(), 
+                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    // Log but don't fail if backup creation fails
+                    System.err.println("Warning: Could not create backup file: " + e.getMessage());
+                }
+            }
+            
+            // Write to temporary file first, then rename (atomic operation)
+            File tempFile = new File(dataFile.getParentFile(), dataFile.getName() + ".tmp");
+            try (JsonWriter writer = new JsonWriter(new BufferedWriter(new FileWriter(tempFile, StandardCharsets.UTF_8)))) {
+                writer.beginArray();
+                for (Party party : parties.values()) {
+                    if (party != null) {
+                        gson.toJson(PartyData.fromParty(party), PartyData.class, writer);
+                    }
+                }
+                writer.endArray();
+            } catch (JsonIOException e) {
+                throw new IOException("Failed to write party data", e);
+            }
+            
+            // Rename temp file to actual file (atomic on most systems)
+            if (!tempFile.renameTo(dataFile)) {
+                throw new IOException("Failed to rename temp file to data file");
+            }
+            return true;
+            
+        } catch (IOException e) {
+            System.err.println("Critical error saving party data: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    // Custom Location adapter for Gson
+    private static class LocationAdapter implements JsonSerializer<Location>, JsonDeserializer<Location> {
+        @Override
+        public JsonElement serialize(Location src, Type typeOfSrc, JsonSerializationContext context) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("level", src.getLevel().getName());
+            obj.addProperty("x", src.getX());
+            obj.addProperty("y", src.getY());
+            obj.addProperty("z", src.getZ());
+            obj.addProperty("yaw", src.getYaw());
+            obj.addProperty("pitch", src.getPitch());
+            return obj;
+        }
+        
+        @Override
+        public Location deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            // Return null, we'll reconstruct in PartyManager with server instance
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.euphoria.party.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts stored party records on the common fork-join pool while the
+ * caller keeps reading. Records are handed over in batches, so reading and
+ * conversion overlap and only a few batches are held in memory at once.
+ */
+class ParallelPartyLoader<R> {
+    
+    private static final int BATCH_SIZE = 256;
+    
+    /**
+     * Converts one record; called concurrently, so it must only write to thread-safe collections
+     */
+    interface Converter<R> {
+        void convert(R record);
+    }
+    
+    private final Converter<R> converter;
+    private final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    private List<R> batch = new ArrayList<>(BATCH_SIZE);
+    
+    ParallelPartyLoader(Converter<R> converter) {
+        this.converter = converter;
+    }
+    
+    /**
+     * Queue a record for conversion
+     */
+    void add(R record) {
+        batch.add(record);
+        if (batch.size() == BATCH_SIZE) {
+            submit();
+        }
+    }
+    
+    /**
+     * Convert the remaining records and wait until every record is converted
+     */
+    void finish() {
+        if (!batch.isEmpty()) {
+            submit();
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        tasks.clear();
+    }
+    
+    private void submit() {
+        // Drop finished batches so converted records don't stay reachable
+        tasks.removeIf(ForkJoinTask::isDone);
+        
+        List<R> records = batch;
+        batch = new ArrayList<>(BATCH_SIZE);
+        tasks.add(ForkJoinPool.commonPool().submit(() -> {
+            for (R record : records) {
+                converter.convert(record);
+            }
+        }));
+    }
+}
@@ -0,0 +1,161 @@
+package com.euphoria.party.storage;
+
+import com.euphoria.party.model.Party;
+import com.euphoria.party.model.PartyRole;
+import com.euphoria.party.model.PartySnapshot;
+
+import java.util.*;
+
+// Data class for JSON serialization, shared by the storage backends
+class PartyData {
+    String id;
+    String leader;
+    List<String> members;
+    PartyStorage.LocationData home;
+    String name;
+    String color;
+    String icon;
+    Map<String, String> roles;
+    List<String> bannedPlayers;
+    List<String> allies;
+    long totalPlayTime;
+    int totalKills;
+    int totalDeaths;
+    List<String> achievements;
+    long lastRewardClaim;
+    int consecutiveDays;
+    long creationTime;
+    
+    static PartyData fromParty(Party party) {
+        PartySnapshot snapshot = party.toSnapshot();
+        PartyData data = new PartyData();
+        data.id = snapshot.id.toString();
+        data.leader = snapshot.leader.toString();
+        data.members = new ArrayList<>(snapshot.members.size());
+        for (UUID memberId : snapshot.members) {
+            data.members.add(memberId.toString());
+        }
+        if (snapshot.home != null) {
+            data.home = PartyStorage.LocationData.fromLocation(snapshot.home);
+        }
+        
+        // Save new fields
+        data.name = snapshot.name;
+        data.color = snapshot.color;
+        data.icon = snapshot.icon;
+        
+        // Save roles
+        data.roles = new HashMap<>();
+        for (UUID memberId : snapshot.members) {
+            PartyRole role = snapshot.roles.getOrDefault(memberId, PartyRole.MEMBER);
+            data.roles.put(memberId.toString(), role.name());
+        }
+        
+        // Save banned players
+        data.bannedPlayers = new ArrayList<>(snapshot.bannedPlayers.size());
+        for (UUID banned : snapshot.bannedPlayers) {
+            data.bannedPlayers.add(banned.toString());
+        }
+        
+        // Save allies
+        data.allies = new ArrayList<>(snapshot.allies.size());
+        for (UUID ally : snapshot.allies) {
+            data.allies.add(ally.toString());
+        }
+        
+        // Save statistics
+        data.totalPlayTime = snapshot.totalPlayTime;
+        data.totalKills = snapshot.totalKills;
+        data.totalDeaths = snapshot.totalDeaths;
+        
+        // Save achievements
+        data.achievements = new ArrayList<>(snapshot.achievements);
+        
+        // Save daily reward data
+        data.lastRewardClaim = snapshot.lastRewardDate;
+        data.consecutiveDays = snapshot.consecutiveDays;
+        data.creationTime = snapshot.createdAt;
+        
+        return data;
+    }
+    
+    /**
+     * @throws IllegalArgumentException if a required field is missing or an id is malformed
+     */
+    Party toParty() {
+        if (members == null) {
+            throw new IllegalArgumentException("party record without members");
+        }
+        PartySnapshot snapshot = new PartySnapshot();
+        snapshot.id = toUuid(id, "id");
+        snapshot.leader = toUuid(leader, "leader");
+        
+        for (String memberId : members) {
+            snapshot.members.add(toUuid(memberId, "member"));
+        }
+        
+        // Note: home will be reconstructed in PartyManager with server instance
+        // We store the LocationData here for PartyManager to access
+        
+        // Restore new fields
+        snapshot.name = name;
+        snapshot.color = color;
+        snapshot.icon = icon;
+        
+        // Restore roles
+        if (roles != null) {
+            for (Map.Entry<String, String> entry : roles.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                try {
+                    snapshot.roles.put(UUID.fromString(entry.getKey()), PartyRole.valueOf(entry.getValue()));
+                } catch (IllegalArgumentException e) {
+                    // Skip invalid roles
+                }
+            }
+        }
+        
+        // Restore banned players
+        if (bannedPlayers != null) {
+            for (String banned : bannedPlayers) {
+                snapshot.bannedPlayers.add(toUuid(banned, "banned player"));
+            }
+        }
+        
+        // Restore allies
+        if (allies != null) {
+            for (String ally : allies) {
+                snapshot.allies.add(toUuid(ally, "ally"));
+            }
+        }
+        
+        // Restore statistics
+        snapshot.totalPlayTime = totalPlayTime;
+        snapshot.totalKills = totalKills;
+        snapshot.totalDeaths = totalDeaths;
+        
+        // Restore achievements
+        if (achievements != null) {
+            snapshot.achievements.addAll(achievements);
+        }
+        
+        // Restore daily reward data and creation time
+        snapshot.lastRewardDate = lastRewardClaim;
+        snapshot.consecutiveDays = consecutiveDays;
+        snapshot.createdAt = creationTime;
+        
+        return new Party(snapshot);
+    }
+    
+    PartyStorage.LocationData getHomeData() {
+        return home;
+    }
+    
+    private static UUID toUuid(String value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("party record without " + field);
+        }
+        return UUID.fromString(value);
+    }
+}
@@ -0,0 +1,342 @@
+package com.euphoria.party.storage;
+
+import cn.nukkit.plugin.PluginLogger;
+import com.euphoria.party.model.Party;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Append-only write-ahead journal of party changes, stored as NDJSON.
+ *
+ * Changed parties are collected on the main thread and serialized as full
+ * upsert records (or delete records) when {@link #flush(Map)} runs. Writing
+ * happens on a single background thread that drains every queued batch and
+ * fsyncs once, so batches from several flushes share one fsync. The journal
+ * is split into numbered segments: {@link #rotate()} starts a new segment
+ * right before a snapshot save, and once the snapshot is written the older
+ * segments are removed with {@link #deleteThrough(long)}.
+ */
+public class PartyJournal {
+    
+    private static final String SEGMENT_PREFIX = "parties.journal.";
+    
+    private final File dataFolder;
+    private final Gson gson = new Gson();
+    private final Set<UUID> pendingUpserts = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> pendingDeletes = ConcurrentHashMap.newKeySet();
+    private final Queue<Batch> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final ExecutorService writer;
+    private final PluginLogger logger;
+    private final Map<UUID, PartyStorage.LocationData> homeDataCache = new HashMap<>();
+    private volatile long segment = 1;
+    
+    // Only touched by the writer thread
+    private FileChannel channel;
+    private long channelSegment = -1;
+    
+    public PartyJournal(File dataFolder, PluginLogger logger) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EuphoriaParty-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Apply all journal segments on top of the loaded snapshot.
+     * Must be called before anything is recorded.
+     * @return Ids of the parties that were upserted or deleted by the journal
+     */
+    public Set<UUID> replay(Map<UUID, Party> parties) {
+        Set<UUID> touched = new HashSet<>();
+        homeDataCache.clear();
+        
+        long lastSegment = 0;
+        int records = 0;
+        for (File file : listSegments()) {
+            lastSegment = Math.max(lastSegment, segmentOf(file.getName()));
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+                        String op = field(record, "op");
+                        if (op.equals("upsert")) {
+                            PartyData data = record.has("party") ? gson.fromJson(record.get("party"), PartyData.class) : null;
+                            if (data == null) {
+                                throw new IllegalArgumentException("upsert without party");
+                            }
+                            Party party = data.toParty();
+                            parties.put(party.getId(), party);
+                            if (data.getHomeData() != null) {
+                                homeDataCache.put(party.getId(), data.getHomeData());
+                            } else {
+                                homeDataCache.remove(party.getId());
+                            }
+                            touched.add(party.getId());
+                        } else if (op.equals("delete")) {
+                            UUID partyId = UUID.fromString(field(record, "id"));
+                            parties.remove(partyId);
+                            homeDataCache.remove(partyId);
+                            touched.add(partyId);
+                        }
+                        records++;
+                    } catch (JsonParseException | IllegalStateException | IllegalArgumentException e) {
+                        // A crash can leave a torn last record, skip it
+                        System.err.println("Skipping invalid journal record in " + file.getName() + ": " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading party journal " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        
+        if (records > 0) {
+            logger.info("Replayed " + records + " journal records for " + touched.size() + " parties");
+        }
+        segment = lastSegment + 1;
+        return touched;
+    }
+    
+    /**
+     * Get the home location data of a party from its last replayed upsert
+     */
+    public PartyStorage.LocationData getHomeData(UUID partyId) {
+        return homeDataCache.get(partyId);
+    }
+    
+    /**
+     * Record that a party changed; it is written on the next flush
+     */
+    public void recordChange(UUID partyId) {
+        pendingDeletes.remove(partyId);
+        pendingUpserts.add(partyId);
+    }
+    
+    /**
+     * Record that a party was deleted; it is written on the next flush
+     */
+    public void recordDelete(UUID partyId) {
+        pendingUpserts.remove(partyId);
+        pendingDeletes.add(partyId);
+    }
+    
+    /**
+     * Serialize all recorded changes and hand them to the writer thread.
+     * Call from the main thread, which owns the party objects.
+     */
+    public void flush(Map<UUID, Party> parties) {
+        if (pendingUpserts.isEmpty() && pendingDeletes.isEmpty()) {
+            return;
+        }
+        
+        StringBuilder lines = new StringBuilder();
+        for (Iterator<UUID> iterator = pendingUpserts.iterator(); iterator.hasNext(); ) {
+            UUID partyId = iterator.next();
+            iterator.remove();
+            Party party = parties.get(partyId);
+            if (party != null) {
+                JsonObject record = new JsonObject();
+                record.addProperty("op", "upsert");
+                record.add("party", gson.toJsonTree(PartyData.fromParty(party)));
+                lines.append(gson.toJson(record)).append('\n');
+            }
+        }
+        for (Iterator<UUID> iterator = pendingDeletes.iterator(); iterator.hasNext(); ) {
+            UUID partyId = iterator.next();
+            iterator.remove();
+            JsonObject record = new JsonObject();
+            record.addProperty("op", "delete");
+            record.addProperty("id", partyId.toString());
+            lines.append(gson.toJson(record)).append('\n');
+        }
+        
+        if (lines.length() == 0) {
+            return;
+        }
+        queue.add(new Batch(segment, lines.toString()));
+        if (writeScheduled.compareAndSet(false, true)) {
+            execute(this::writeQueued);
+        }
+    }
+    
+    /**
+     * Start a new segment. Batches flushed before this call stay in the old one.
+     * @return Number of the closed segment, to pass to {@link #deleteThrough(long)}
+     */
+    public long rotate() {
+        long closed = segment;
+        segment = closed + 1;
+        execute(() -> {
+            writeQueued();
+            if (channelSegment == closed) {
+                closeChannel();
+            }
+        });
+        return closed;
+    }
+    
+    /**
+     * Delete all segments up to and including the given one, once their
+     * records are contained in a snapshot
+     */
+    public void deleteThrough(long lastSegment) {
+        Runnable delete = () -> {
+            for (File file : listSegments()) {
+                if (segmentOf(file.getName()) <= lastSegment && !file.delete()) {
+                    System.err.println("Warning: Could not delete party journal " + file.getName());
+                }
+            }
+        };
+        // A save finishing after close() still removes what it covers once nothing writes anymore
+        if (!execute(delete) && writer.isTerminated()) {
+            delete.run();
+        }
+    }
+    
+    /**
+     * Write everything still queued and stop the writer thread
+     */
+    public void close() {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(() -> {
+            writeQueued();
+            closeChannel();
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Warning: Party journal did not finish writing in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Hand a task to the writer thread
+     * @return false if the journal was already closed
+     */
+    private boolean execute(Runnable task) {
+        if (writer.isShutdown()) {
+            return false;
+        }
+        try {
+            writer.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;  // Closed concurrently
+        }
+    }
+    
+    /**
+     * Group commit: append every queued batch, then fsync once
+     */
+    private void writeQueued() {
+        writeScheduled.set(false);
+        
+        Batch batch;
+        while ((batch = queue.poll()) != null) {
+            try {
+                if (channel == null || channelSegment != batch.segment) {
+                    closeChannel();
+                    if (!dataFolder.exists()) {
+                        dataFolder.mkdirs();
+                    }
+                    File file = new File(dataFolder, SEGMENT_PREFIX + batch.segment);
+                    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    channelSegment = batch.segment;
+                }
+                
+                ByteBuffer buffer = ByteBuffer.wrap(batch.lines.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (queue.isEmpty()) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                System.err.println("Critical error writing party journal: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing party journal: " + e.getMessage());
+            }
+            channel = null;
+            channelSegment = -1;
+        }
+    }
+    
+    private List<File> listSegments() {
+        File[] files = dataFolder.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && segmentOf(name) >= 0);
+        List<File> segments = files != null ? new ArrayList<>(Arrays.asList(files)) : new ArrayList<>();
+        segments.sort(Comparator.comparingLong(file -> segmentOf(file.getName())));
+        return segments;
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the record has no such string field
+     */
+    private static String field(JsonObject record, String name) {
+        JsonElement value = record.get(name);
+        if (value == null || !value.isJsonPrimitive()) {
+            throw new IllegalArgumentException("record without " + name);
+        }
+        return value.getAsString();
+    }
+    
+    private static long segmentOf(String name) {
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static class Batch {
+        private final long segment;
+        private final String lines;
+        
+        Batch(long segment, String lines) {
+            this.segment = segment;
+            this.lines = lines;
+        }
+    }
+}
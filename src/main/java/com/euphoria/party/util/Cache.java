@@ -2,79 +2,353 @@ package com.euphoria.party.util;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+/**
+ * Bounded concurrent cache with a fixed time-to-live.
+ *
+ * Lookups read a ConcurrentHashMap and compare the entry's expiry against
+ * {@link CoarseClock}, so a hit costs no lock and no system call. Eviction
+ * uses a segmented LRU: new entries start in a probation segment and are
+ * promoted to a protected segment (80% of the capacity) when hit again, so
+ * one-off lookups can't flush the entries that are used all the time. The
+ * victim is always the tail of probation, which is O(1). Expired entries are
+ * reclaimed by a hashed timer wheel that only visits the buckets whose time
+ * has passed instead of scanning the whole cache. Writes and policy updates
+ * share one lock; hits reorder the LRU only when that lock is free.
+ */
 public class Cache<K, V> {
     
-    private final Map<K, CacheEntry<V>> cache;
+    private static final int WHEEL_SHIFT = 10;  // ~1 second per bucket
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    
+    private static final int NONE = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    
+    private final Map<K, Node<K, V>> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
     private final long ttl;
     private final int maxSize;
+    private final int maxProtected;
+    
+    // Guarded by lock
+    private final Node<K, V> probation = Node.sentinel();
+    private final Node<K, V> protectedSegment = Node.sentinel();
+    private final Node<K, V>[] wheel;
+    private long wheelTick;
+    private int protectedSize = 0;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
     
     public Cache(long ttlMillis) {
         this(ttlMillis, 0); // 0 = unlimited
     }
     
+    @SuppressWarnings("unchecked")
     public Cache(long ttlMillis, int maxSize) {
-        this.cache = new ConcurrentHashMap<>();
         this.ttl = ttlMillis;
         this.maxSize = maxSize;
+        this.maxProtected = maxSize > 0 ? Math.max(1, maxSize * 4 / 5) : Integer.MAX_VALUE;
+        this.wheel = new Node[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = Node.sentinel();
+        }
+        this.wheelTick = CoarseClock.currentTimeMillis() >> WHEEL_SHIFT;
     }
     
     public void put(K key, V value) {
-        // Enforce max size if set
-        if (maxSize > 0 && cache.size() >= maxSize) {
-            // Remove oldest expired entry first, or random entry if none expired
-            cleanExpired();
-            if (cache.size() >= maxSize) {
-                // Remove first entry (arbitrary, but maintains size limit)
-                K firstKey = cache.keySet().iterator().next();
-                cache.remove(firstKey);
+        long now = CoarseClock.currentTimeMillis();
+        Node<K, V> node = new Node<>(key, value, now + ttl);
+        
+        lock.lock();
+        try {
+            expire(now);
+            Node<K, V> previous = cache.put(key, node);
+            if (previous != null) {
+                unlink(previous);
             }
+            linkFirst(probation, node, PROBATION);
+            schedule(node);
+            
+            if (maxSize > 0) {
+                while (cache.size() > maxSize) {
+                    Node<K, V> victim = probation.prev != probation ? probation.prev : protectedSegment.prev;
+                    if (victim == protectedSegment) {
+                        break;
+                    }
+                    cache.remove(victim.key, victim);
+                    unlink(victim);
+                    evictions.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
         }
-        
-        cache.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttl));
     }
     
     public V get(K key) {
-        CacheEntry<V> entry = cache.get(key);
-        if (entry == null) {
+        Node<K, V> node = cache.get(key);
+        if (node == null) {
+            misses.increment();
             return null;
         }
         
-        if (entry.isExpired()) {
-            cache.remove(key);
+        if (node.expiresAt <= CoarseClock.currentTimeMillis()) {
+            // Reclaimed by the timer wheel on the next write
+            misses.increment();
             return null;
         }
         
-        return entry.value;
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                onAccess(node);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+    
+    /**
+     * Get a cached value or compute and cache it. Null results are not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        
+        long start = System.nanoTime();
+        value = loader.apply(key);
+        loadTime.add(System.nanoTime() - start);
+        loads.increment();
+        
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
     }
     
     public void invalidate(K key) {
-        cache.remove(key);
+        lock.lock();
+        try {
+            Node<K, V> node = cache.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
     
     public void clear() {
-        cache.clear();
+        lock.lock();
+        try {
+            cache.clear();
+            probation.prev = probation.next = probation;
+            protectedSegment.prev = protectedSegment.next = protectedSegment;
+            for (Node<K, V> bucket : wheel) {
+                bucket.wheelPrev = bucket.wheelNext = bucket;
+            }
+            protectedSize = 0;
+        } finally {
+            lock.unlock();
+        }
     }
     
+    /**
+     * Reclaim entries whose time-to-live has passed
+     */
     public void cleanExpired() {
-        cache.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        lock.lock();
+        try {
+            expire(CoarseClock.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
     }
     
     public int size() {
         return cache.size();
     }
     
-    private static class CacheEntry<V> {
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), loads.sum(), loadTime.sum());
+    }
+    
+    /**
+     * Advance the timer wheel to now, dropping the expired entries of every bucket passed
+     */
+    private void expire(long now) {
+        long tick = now >> WHEEL_SHIFT;
+        if (tick <= wheelTick) {
+            return;
+        }
+        
+        long buckets = Math.min(tick - wheelTick, WHEEL_SIZE);
+        for (long i = 0; i < buckets; i++) {
+            Node<K, V> bucket = wheel[(int) ((wheelTick + i) & WHEEL_MASK)];
+            Node<K, V> node = bucket.wheelNext;
+            while (node != bucket) {
+                Node<K, V> next = node.wheelNext;
+                // Entries a full wheel turn ahead share the bucket and stay
+                if (node.expiresAt <= now) {
+                    cache.remove(node.key, node);
+                    unlink(node);
+                    expirations.increment();
+                }
+                node = next;
+            }
+        }
+        wheelTick = tick;
+    }
+    
+    private void onAccess(Node<K, V> node) {
+        if (node.segment == PROBATION) {
+            unlinkLru(node);
+            linkFirst(protectedSegment, node, PROTECTED);
+            protectedSize++;
+            
+            // Demote the least recently used protected entry back to probation
+            if (protectedSize > maxProtected) {
+                Node<K, V> demoted = protectedSegment.prev;
+                unlinkLru(demoted);
+                protectedSize--;
+                linkFirst(probation, demoted, PROBATION);
+            }
+        } else if (node.segment == PROTECTED) {
+            unlinkLru(node);
+            linkFirst(protectedSegment, node, PROTECTED);
+        }
+    }
+    
+    private void schedule(Node<K, V> node) {
+        Node<K, V> bucket = wheel[(int) ((node.expiresAt >> WHEEL_SHIFT) & WHEEL_MASK)];
+        node.wheelPrev = bucket.wheelPrev;
+        node.wheelNext = bucket;
+        bucket.wheelPrev.wheelNext = node;
+        bucket.wheelPrev = node;
+    }
+    
+    private void linkFirst(Node<K, V> head, Node<K, V> node, int segment) {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+        node.segment = segment;
+    }
+    
+    private void unlinkLru(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+        node.segment = NONE;
+    }
+    
+    private void unlink(Node<K, V> node) {
+        if (node.segment == NONE) {
+            return;
+        }
+        if (node.segment == PROTECTED) {
+            protectedSize--;
+        }
+        unlinkLru(node);
+        node.wheelPrev.wheelNext = node.wheelNext;
+        node.wheelNext.wheelPrev = node.wheelPrev;
+        node.wheelPrev = node.wheelNext = null;
+    }
+    
+    private static class Node<K, V> {
+        private final K key;
         private final V value;
-        private final long expiryTime;
+        private final long expiresAt;
+        private int segment = NONE;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private Node<K, V> wheelPrev;
+        private Node<K, V> wheelNext;
         
-        CacheEntry(V value, long expiryTime) {
+        Node(K key, V value, long expiresAt) {
+            this.key = key;
             this.value = value;
-            this.expiryTime = expiryTime;
+            this.expiresAt = expiresAt;
+        }
+        
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> node = new Node<>(null, null, Long.MAX_VALUE);
+            node.prev = node.next = node;
+            node.wheelPrev = node.wheelNext = node;
+            return node;
+        }
+    }
+    
+    /**
+     * Point-in-time cache counters
+     */
+    public static class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+        private final long loadCount;
+        private final long totalLoadTime;
+        
+        Stats(long hitCount, long missCount, long evictionCount, long expirationCount, long loadCount, long totalLoadTime) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+            this.loadCount = loadCount;
+            this.totalLoadTime = totalLoadTime;
+        }
+        
+        public long getHitCount() {
+            return hitCount;
+        }
+        
+        public long getMissCount() {
+            return missCount;
+        }
+        
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+        
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+        
+        public long getLoadCount() {
+            return loadCount;
+        }
+        
+        /**
+         * @return Total time spent in loaders, in nanoseconds
+         */
+        public long getTotalLoadTime() {
+            return totalLoadTime;
+        }
+        
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
         }
         
-        boolean isExpired() {
-            return System.currentTimeMillis() > expiryTime;
+        /**
+         * @return Average time per load, in nanoseconds
+         */
+        public double getAverageLoadPenalty() {
+            return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
         }
     }
 }
@@ -0,0 +1,28 @@
+package com.euphoria.party.util;
+
+/**
+ * Wall clock that is read from a volatile field instead of the OS.
+ * The plugin refreshes it once per server tick, so readings are up to one
+ * tick (50 ms) old, which is plenty for cache expiry and cooldowns.
+ */
+public final class CoarseClock {
+    
+    private static volatile long now = System.currentTimeMillis();
+    
+    private CoarseClock() {
+    }
+    
+    /**
+     * @return Epoch millis as of the last tick
+     */
+    public static long currentTimeMillis() {
+        return now;
+    }
+    
+    /**
+     * Refresh the clock; called every server tick
+     */
+    public static void tick() {
+        now = System.currentTimeMillis();
+    }
+}
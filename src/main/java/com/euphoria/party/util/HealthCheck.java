@@ -1,9 +1,11 @@
 package com.euphoria.party.util;
 
 import com.euphoria.party.EuphoriaPartyPlugin;
+import com.euphoria.party.manager.PartyTickEngine;
 import com.euphoria.party.model.Party;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -26,6 +28,7 @@ public class HealthCheck {
         // Basic stats
         status.put("status", "healthy");
         status.put("activeParties", plugin.getPartyManager().getAllParties().size());
+        status.put("onlineParties", plugin.getPartyManager().getPresence().getActiveParties().size());
         status.put("onlinePlayers", plugin.getServer().getOnlinePlayers().size());
         
         // Memory stats
@@ -48,13 +51,9 @@ public class HealthCheck {
             if (party.hasHome()) {
                 partiesWithHome++;
             }
-            
-            for (java.util.UUID memberId : party.getMembers()) {
-                cn.nukkit.Player player = plugin.getServer().getPlayer(memberId).orElse(null);
-                if (player != null && player.isOnline()) {
-                    onlineMembers++;
-                }
-            }
+        }
+        for (Party party : plugin.getPartyManager().getPresence().getActiveParties()) {
+            onlineMembers += plugin.getPartyManager().getPresence().getOnlineCount(party);
         }
         
         status.put("totalPartyMembers", totalMembers);
@@ -62,9 +61,18 @@ public class HealthCheck {
         status.put("onlinePartyMembers", onlineMembers);
         
         // Performance indicators
-        status.put("cacheEnabled", plugin.getConfig().getBoolean("performance.cache-party-lookups", true));
-        status.put("asyncSaveEnabled", plugin.getConfig().getBoolean("performance.async-save", true));
-        status.put("optimizeMarkersEnabled", plugin.getConfig().getBoolean("performance.optimize-markers", true));
+        status.put("cacheEnabled", plugin.getPartyConfig().isCachePartyLookups());
+        status.put("partyCacheStats", plugin.getPartyManager().getPartyCacheStats());
+        status.put("asyncSaveEnabled", plugin.getPartyConfig().isAsyncSave());
+        status.put("optimizeMarkersEnabled", plugin.getPartyConfig().isOptimizeMarkers());
+        
+        // Save stats
+        status.put("lastSavedParties", plugin.getPartyManager().getLastSavedParties());
+        status.put("totalSavedParties", plugin.getPartyManager().getTotalSavedParties());
+        status.put("unsavedChanges", plugin.getPartyManager().hasUnsavedChanges());
+        
+        // Tick phase timings
+        status.put("tickPhases", plugin.getTickEngine().getPhases());
         
         return status;
     }
@@ -78,7 +86,8 @@ public class HealthCheck {
         
         sb.append("§8========== §6Plugin Health Status §8==========\n");
         sb.append("§eStatus: §a").append(status.get("status")).append("\n");
-        sb.append("§eActive Parties: §f").append(status.get("activeParties")).append("\n");
+        sb.append("§eActive Parties: §f").append(status.get("activeParties"))
+            .append(" §7(§f").append(status.get("onlineParties")).append(" §7online)\n");
         sb.append("§eOnline Players: §f").append(status.get("onlinePlayers")).append("\n");
         sb.append("§eParty Members (Online/Total): §f").append(status.get("onlinePartyMembers"))
             .append("§7/§f").append(status.get("totalPartyMembers")).append("\n");
@@ -87,13 +96,43 @@ public class HealthCheck {
             .append("§7/§f").append(status.get("memoryTotalMB"))
             .append(" MB §7(§f").append(status.get("memoryPercentage")).append("%§7)\n");
         sb.append("§eCache Enabled: ").append((boolean)status.get("cacheEnabled") ? "§a✓" : "§c✗").append("\n");
+        appendCacheStats(sb, "Party Cache", (Cache.Stats) status.get("partyCacheStats"));
         sb.append("§eAsync Save: ").append((boolean)status.get("asyncSaveEnabled") ? "§a✓" : "§c✗").append("\n");
         sb.append("§eOptimized Markers: ").append((boolean)status.get("optimizeMarkersEnabled") ? "§a✓" : "§c✗").append("\n");
+        sb.append("§eParties Written (Last Save/Total): §f").append(status.get("lastSavedParties"))
+            .append("§7/§f").append(status.get("totalSavedParties")).append("\n");
+        sb.append("§eUnsaved Changes: ").append((boolean)status.get("unsavedChanges") ? "§e✓" : "§a✗").append("\n");
+        @SuppressWarnings("unchecked")
+        List<PartyTickEngine.Phase> phases = (List<PartyTickEngine.Phase>) status.get("tickPhases");
+        for (PartyTickEngine.Phase phase : phases) {
+            appendPhaseStats(sb, phase);
+        }
         sb.append("§8================================");
         
         return sb.toString();
     }
     
+    private void appendCacheStats(StringBuilder sb, String name, Cache.Stats stats) {
+        sb.append("§e").append(name).append(" (Hit Rate/Evictions/Expired): §f")
+            .append(String.format("%.1f%%", stats.getHitRate() * 100))
+            .append("§7/§f").append(stats.getEvictionCount())
+            .append("§7/§f").append(stats.getExpirationCount()).append("\n");
+    }
+    
+    private void appendPhaseStats(StringBuilder sb, PartyTickEngine.Phase phase) {
+        sb.append("§ePhase ").append(phase.getName()).append(" (Avg/Max/Budget µs, Overruns): §f")
+            .append(String.format("%.0f", phase.getAverageNanos() / 1000))
+            .append("§7/§f").append(phase.getMaxNanos() / 1000)
+            .append("§7/§f").append(phase.getBudgetNanos() / 1000)
+            .append("§7, §f").append(phase.getOverruns()).append("\n");
+        if (phase.isResumable()) {
+            sb.append("§7  Sweep (Last/Max/Interval ticks): §f").append(phase.getLastSweepTicks())
+                .append("§7/§f").append(phase.getMaxSweepTicks())
+                .append("§7/§f").append(phase.getPeriod())
+                .append(" §7Deferred: §f").append(phase.getBacklog()).append("\n");
+        }
+    }
+    
     /**
      * Check if system is healthy (enough resources, no critical errors)
      */
@@ -0,0 +1,114 @@
+package com.euphoria.party.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message text compiled once into literal and {placeholder} segments.
+ *
+ * Rendering walks the segments and appends the values into a reused
+ * per-thread StringBuilder instead of rescanning the text with String.replace
+ * for every placeholder. A template without placeholders renders to the same
+ * String every time. Placeholders that are not given a value are kept as
+ * written, like an unmatched String.replace.
+ */
+public final class MessageTemplate {
+    
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+    
+    private final String text;
+    private final String[] literals;  // literals[i] comes before names[i]; one more literal than names
+    private final String[] names;
+    
+    private MessageTemplate(String text, String[] literals, String[] names) {
+        this.text = text;
+        this.literals = literals;
+        this.names = names;
+    }
+    
+    public static MessageTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int open = text.indexOf('{');
+        while (open >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            
+            // A nested '{' starts over from the inner brace
+            int inner = text.lastIndexOf('{', close);
+            if (inner > open) {
+                open = inner;
+            }
+            if (close > open + 1) {
+                literals.add(text.substring(start, open));
+                names.add(text.substring(open + 1, close));
+                start = close + 1;
+            }
+            open = text.indexOf('{', close + 1);
+        }
+        literals.add(text.substring(start));
+        return new MessageTemplate(text, literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+    
+    /**
+     * @return The source text
+     */
+    public String getText() {
+        return text;
+    }
+    
+    public boolean hasPlaceholders() {
+        return names.length > 0;
+    }
+    
+    public String render() {
+        return names.length == 0 ? text : render(null, null, null, null, null, null);
+    }
+    
+    public String render(String name, Object value) {
+        return render(name, value, null, null, null, null);
+    }
+    
+    public String render(String name1, Object value1, String name2, Object value2) {
+        return render(name1, value1, name2, value2, null, null);
+    }
+    
+    public String render(String name1, Object value1, String name2, Object value2, String name3, Object value3) {
+        if (names.length == 0) {
+            return text;
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        appendTo(out, name1, value1, name2, value2, name3, value3);
+        return out.toString();
+    }
+    
+    /**
+     * Append the rendered text to a caller-owned builder
+     */
+    public StringBuilder appendTo(StringBuilder out, String name1, Object value1, String name2, Object value2,
+                                  String name3, Object value3) {
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            String name = names[i];
+            if (name.equals(name1)) {
+                out.append(value1);
+            } else if (name.equals(name2)) {
+                out.append(value2);
+            } else if (name.equals(name3)) {
+                out.append(value3);
+            } else {
+                out.append('{').append(name).append('}');
+            }
+        }
+        return out.append(literals[names.length]);
+    }
+    
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,95 @@
+package com.euphoria.party.util;
+
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every configured message and format, compiled once per config load.
+ *
+ * Instances are immutable; the plugin builds a new set on reload and swaps
+ * it in with a single volatile write, so readers never see a mix of old and
+ * new messages.
+ */
+public final class MessageTemplates {
+    
+    private static final String DEFAULT_PREFIX = "§8[§6Party§8]§r ";
+    
+    // Format strings read from outside the messages section, with their defaults
+    private static final String[][] FORMATS = {
+        {"party.party-chat-format", "§8[§6Party§8] §f{player}§7: §f{message}"},
+        {"party.party-prefix-format", "§8[§6{party}§8] "},
+        {"party.tab-list-prefix-format", "{color}[{party}] §r"},
+        {"hud.coordinates.format", "§eX: §f{x} §eY: §f{y} §eZ: §f{z}"}
+    };
+    
+    private final String prefix;
+    private final Map<String, MessageTemplate> messages;
+    private final Map<String, MessageTemplate> prefixed;
+    private final Map<String, MessageTemplate> formats;
+    
+    private MessageTemplates(String prefix, Map<String, MessageTemplate> messages,
+                             Map<String, MessageTemplate> prefixed, Map<String, MessageTemplate> formats) {
+        this.prefix = prefix;
+        this.messages = messages;
+        this.prefixed = prefixed;
+        this.formats = formats;
+    }
+    
+    public static MessageTemplates load(Config config) {
+        String prefix = config.getString("messages.prefix", DEFAULT_PREFIX);
+        Map<String, MessageTemplate> messages = new HashMap<>();
+        Map<String, MessageTemplate> prefixed = new HashMap<>();
+        
+        ConfigSection section = config.getSection("messages");
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                if (key.equals("prefix")) {
+                    continue;
+                }
+                String text = section.getString(key, key);
+                messages.put(key, MessageTemplate.compile(text));
+                prefixed.put(key, MessageTemplate.compile(prefix + text));
+            }
+        }
+        
+        Map<String, MessageTemplate> formats = new HashMap<>();
+        for (String[] format : FORMATS) {
+            formats.put(format[0], MessageTemplate.compile(config.getString(format[0], format[1])));
+        }
+        return new MessageTemplates(prefix, Map.copyOf(messages), Map.copyOf(prefixed), Map.copyOf(formats));
+    }
+    
+    /**
+     * @return The message with the configured prefix; unknown keys render as the key itself
+     */
+    public MessageTemplate get(String key) {
+        MessageTemplate template = prefixed.get(key);
+        return template != null ? template : MessageTemplate.compile(prefix + key);
+    }
+    
+    /**
+     * @return The message without prefix; unknown keys render as the key itself
+     */
+    public MessageTemplate getWithoutPrefix(String key) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template : MessageTemplate.compile(key);
+    }
+    
+    /**
+     * @return One of the format strings outside the messages section, by config path
+     */
+    public MessageTemplate getFormat(String path) {
+        MessageTemplate template = formats.get(path);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown format: " + path);
+        }
+        return template;
+    }
+    
+    public String getPrefix() {
+        return prefix;
+    }
+}
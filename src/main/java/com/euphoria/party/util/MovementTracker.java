@@ -0,0 +1,124 @@
+package com.euphoria.party.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Tracks the last rendered position of each player to detect meaningful movement.
+ *
+ * Positions are stored as primitive x/y/z triples in a flat array indexed by a
+ * per-player slot from a {@link UuidSlotMap}, so checking a player costs one
+ * probe of a primitive table and no allocation.
+ * A player only counts as moved once it crosses the threshold distance from the
+ * position recorded at its last movement, which prevents small jitter from
+ * accumulating into constant updates. Not thread-safe; use from the main thread.
+ */
+public class MovementTracker {
+    
+    private final UuidSlotMap slots = new UuidSlotMap();
+    private int[] freeSlots = new int[32];  // Stack of released slots
+    private int freeCount = 0;
+    private double[] positions = new double[3 * 32];
+    private Object[] levels = new Object[32];
+    private UUID[] players = new UUID[32];
+    private int nextSlot = 0;
+    
+    /**
+     * Record the player's current position
+     * @return true if the player is new, changed level or moved at least
+     *         sqrt(thresholdSquared) blocks since its last recorded movement
+     */
+    public boolean update(UUID playerId, Object level, double x, double y, double z, double thresholdSquared) {
+        int slot = slots.get(playerId);
+        if (slot < 0) {
+            slot = allocate();
+            slots.put(playerId, slot);
+            players[slot] = playerId;
+            store(slot, level, x, y, z);
+            return true;
+        }
+        
+        int base = slot * 3;
+        if (levels[slot] != level) {
+            store(slot, level, x, y, z);
+            return true;
+        }
+        
+        double dx = positions[base] - x;
+        double dy = positions[base + 1] - y;
+        double dz = positions[base + 2] - z;
+        if (dx * dx + dy * dy + dz * dz < thresholdSquared) {
+            return false;
+        }
+        
+        store(slot, level, x, y, z);
+        return true;
+    }
+    
+    /**
+     * Forget a player so its next update counts as movement
+     */
+    public void remove(UUID playerId) {
+        int slot = slots.remove(playerId);
+        if (slot >= 0) {
+            release(slot);
+        }
+    }
+    
+    /**
+     * Forget every player that does not match the filter
+     */
+    public void retainAll(Predicate<UUID> keep) {
+        for (int slot = 0; slot < nextSlot; slot++) {
+            UUID playerId = players[slot];
+            if (playerId != null && !keep.test(playerId)) {
+                slots.remove(playerId);
+                release(slot);
+            }
+        }
+    }
+    
+    public void clear() {
+        slots.clear();
+        freeCount = 0;
+        Arrays.fill(levels, null);
+        Arrays.fill(players, null);
+        nextSlot = 0;
+    }
+    
+    public int size() {
+        return slots.size();
+    }
+    
+    private void store(int slot, Object level, double x, double y, double z) {
+        int base = slot * 3;
+        positions[base] = x;
+        positions[base + 1] = y;
+        positions[base + 2] = z;
+        levels[slot] = level;
+    }
+    
+    private void release(int slot) {
+        levels[slot] = null;
+        players[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        
+        int slot = nextSlot++;
+        if (slot == levels.length) {
+            levels = Arrays.copyOf(levels, slot * 2);
+            positions = Arrays.copyOf(positions, slot * 2 * 3);
+            players = Arrays.copyOf(players, slot * 2);
+        }
+        return slot;
+    }
+}
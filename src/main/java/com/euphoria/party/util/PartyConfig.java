@@ -0,0 +1,428 @@
+package com.euphoria.party.util;
+
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed, immutable snapshot of the plugin config.
+ *
+ * Built once on enable and on every reload, then published by the plugin
+ * through a volatile reference, so tick tasks and event handlers read plain
+ * fields instead of walking the YAML tree. Hold on to one snapshot for the
+ * duration of a pass to see consistent values.
+ */
+public final class PartyConfig {
+    
+    private static final String[] DIRECTION_KEYS = {
+        "south", "southwest", "west", "northwest", "north", "northeast", "east", "southeast"
+    };
+    private static final String[] DIRECTION_DEFAULTS = {
+        "§cS", "§cSW", "§cW", "§cNW", "§cN", "§cNE", "§cE", "§cSE"
+    };
+    
+    // Party limits
+    private final int maxMembers;
+    private final int maxPendingInvites;
+    private final long inviteExpiration;
+    
+    // Chat and notifications
+    private final boolean notifyOnlineOffline;
+    private final boolean partyChatEnabled;
+    private final String partyChatPrefix;
+    private final boolean showPartyInChat;
+    private final boolean tabListFormatting;
+    
+    // Sharing
+    private final boolean shareXp;
+    private final double xpShareRadius;
+    private final boolean shareLoot;
+    private final double lootShareRadius;
+    private final double lootShareChance;
+    
+    // Teleport and respawn
+    private final boolean teleportEnabled;
+    private final boolean respawnAtHome;
+    private final int teleportCooldown;
+    private final int maxTeleportDistance;
+    private final boolean safeTeleport;
+    private final int commandCooldown;
+    
+    // Markers
+    private final int markerUpdateInterval;
+    private final double markerDistance;
+    private final int markerParticleCount;
+    private final boolean optimizeMarkers;
+    private final double markerMoveThreshold;
+    private final int markerRefreshInterval;
+    
+    // Distance check, playtime and cleanup
+    private final boolean maxDistanceCheckEnabled;
+    private final int maxDistanceCheckInterval;
+    private final double maxDistance;
+    private final boolean kickOnWorldChange;
+    private final boolean trackPlaytime;
+    private final boolean disbandWhenAllOffline;
+    
+    // Rewards, buffs and scoreboard
+    private final int dailyRewardXp;
+    private final int dailyRewardStreakBonus;
+    private final boolean buffsEnabled;
+    private final boolean scoreboardEnabled;
+    private final int scoreboardUpdateInterval;
+    private final String scoreboardDisplayType;
+    
+    // HUD
+    private final int hudUpdateInterval;
+    private final int hudRefreshInterval;
+    private final boolean coordinatesDefault;
+    private final boolean compassDefault;
+    private final String[] directions;
+    
+    // Performance and storage
+    private final boolean cachePartyLookups;
+    private final long cacheTtl;
+    private final int maxCacheSize;
+    private final boolean asyncSave;
+    private final boolean asyncLoad;
+    private final boolean batchAchievementChecks;
+    private final String storageType;
+    private final boolean journal;
+    private final int journalFlushInterval;
+    private final int memoryCleanupInterval;
+    private final int autoSaveInterval;
+    private final int proximityThreads;
+    private final Map<String, Long> phaseBudgets;  // Nanoseconds per tick phase
+    private final boolean logPerformance;
+    
+    private PartyConfig(Config config) {
+        this.maxMembers = config.getInt("party.max-members", 8);
+        this.maxPendingInvites = config.getInt("party.max-pending-invites", 10);
+        this.inviteExpiration = config.getLong("party.invite-expiration", 300000);
+        
+        this.notifyOnlineOffline = config.getBoolean("party.notify-online-offline", true);
+        this.partyChatEnabled = config.getBoolean("party.party-chat-enabled", true);
+        this.partyChatPrefix = config.getString("party.party-chat-prefix", "@");
+        this.showPartyInChat = config.getBoolean("party.show-party-in-chat", true);
+        this.tabListFormatting = config.getBoolean("party.tab-list-formatting", false);
+        
+        this.shareXp = config.getBoolean("party.share-xp", false);
+        this.xpShareRadius = config.getDouble("party.xp-share-radius", 50.0);
+        this.shareLoot = config.getBoolean("party.share-loot", false);
+        this.lootShareRadius = config.getDouble("party.loot-share-radius", 30.0);
+        this.lootShareChance = config.getDouble("party.loot-share-chance", 0.3);
+        
+        this.teleportEnabled = config.getBoolean("party.teleport-enabled", true);
+        this.respawnAtHome = config.getBoolean("party.respawn-at-home", false);
+        this.teleportCooldown = config.getInt("security.teleport-cooldown", 30);
+        this.maxTeleportDistance = config.getInt("security.max-teleport-distance", 10000);
+        this.safeTeleport = config.getBoolean("security.safe-teleport", true);
+        this.commandCooldown = config.getInt("security.command-cooldown", 3);
+        
+        this.markerUpdateInterval = config.getInt("party.marker-update-interval", 10);
+        this.markerDistance = config.getDouble("party.marker-distance", 200.0);
+        this.markerParticleCount = config.getInt("party.marker-particle-count", 3);
+        this.optimizeMarkers = config.getBoolean("performance.optimize-markers", true);
+        this.markerMoveThreshold = config.getDouble("performance.marker-move-threshold", 1.0);
+        this.markerRefreshInterval = config.getInt("performance.marker-refresh-interval", 20);
+        
+        this.maxDistanceCheckEnabled = config.getBoolean("party.max-distance-check-enabled", false);
+        this.maxDistanceCheckInterval = config.getInt("party.max-distance-check-interval", 200);
+        this.maxDistance = config.getDouble("party.max-distance", 500.0);
+        this.kickOnWorldChange = config.getBoolean("party.kick-on-world-change", false);
+        this.trackPlaytime = config.getBoolean("party.track-playtime", true);
+        this.disbandWhenAllOffline = config.getBoolean("party.disband-when-all-offline", false);
+        
+        this.dailyRewardXp = config.getInt("party.daily-reward-xp", 50);
+        this.dailyRewardStreakBonus = config.getInt("party.daily-reward-streak-bonus", 10);
+        this.buffsEnabled = config.getBoolean("party.buffs.enabled", false);
+        this.scoreboardEnabled = config.getBoolean("party.scoreboard.enabled", false);
+        this.scoreboardUpdateInterval = config.getInt("party.scoreboard.update-interval", 40);
+        this.scoreboardDisplayType = config.getString("party.scoreboard.display-type", "popup");
+        
+        this.hudUpdateInterval = Math.max(1, config.getInt("hud.coordinates.update-interval", 20));
+        this.hudRefreshInterval = Math.max(hudUpdateInterval, config.getInt("hud.refresh-interval", 100));
+        this.coordinatesDefault = config.getBoolean("hud.coordinates.default-enabled", true);
+        this.compassDefault = config.getBoolean("hud.compass.default-enabled", true);
+        this.directions = new String[DIRECTION_KEYS.length];
+        for (int i = 0; i < directions.length; i++) {
+            directions[i] = config.getString("hud.compass.directions." + DIRECTION_KEYS[i], DIRECTION_DEFAULTS[i]);
+        }
+        
+        this.cachePartyLookups = config.getBoolean("performance.cache-party-lookups", true);
+        this.cacheTtl = config.getLong("performance.cache-ttl", 30000);
+        this.maxCacheSize = config.getInt("performance.max-cache-size", 1000);
+        this.asyncSave = config.getBoolean("performance.async-save", true);
+        this.asyncLoad = config.getBoolean("performance.async-load", true);
+        this.batchAchievementChecks = config.getBoolean("performance.batch-achievement-checks", true);
+        this.storageType = config.getString("storage.type", "json");
+        this.journal = config.getBoolean("storage.journal", true);
+        this.journalFlushInterval = Math.max(1, config.getInt("storage.journal-flush-interval", 20));
+        this.memoryCleanupInterval = Math.max(1, config.getInt("performance.memory-cleanup-interval", 6000));
+        this.autoSaveInterval = Math.max(1, config.getInt("performance.auto-save-interval", 6000));
+        this.proximityThreads = config.getInt("performance.proximity-threads", -1);
+        
+        Map<String, Long> budgets = new HashMap<>();
+        ConfigSection section = config.getSection("performance.phase-budgets");
+        if (section != null) {
+            for (String phase : section.getKeys(false)) {
+                budgets.put(phase, section.getLong(phase, 0) * 1000L);
+            }
+        }
+        this.phaseBudgets = Map.copyOf(budgets);
+        this.logPerformance = config.getBoolean("debug.log-performance", false);
+    }
+    
+    public static PartyConfig load(Config config) {
+        return new PartyConfig(config);
+    }
+    
+    public int getMaxMembers() {
+        return maxMembers;
+    }
+    
+    public int getMaxPendingInvites() {
+        return maxPendingInvites;
+    }
+    
+    /**
+     * @return Invite and join request lifetime in milliseconds
+     */
+    public long getInviteExpiration() {
+        return inviteExpiration;
+    }
+    
+    public boolean isNotifyOnlineOffline() {
+        return notifyOnlineOffline;
+    }
+    
+    public boolean isPartyChatEnabled() {
+        return partyChatEnabled;
+    }
+    
+    public String getPartyChatPrefix() {
+        return partyChatPrefix;
+    }
+    
+    public boolean isShowPartyInChat() {
+        return showPartyInChat;
+    }
+    
+    public boolean isTabListFormatting() {
+        return tabListFormatting;
+    }
+    
+    public boolean isShareXp() {
+        return shareXp;
+    }
+    
+    public double getXpShareRadius() {
+        return xpShareRadius;
+    }
+    
+    public boolean isShareLoot() {
+        return shareLoot;
+    }
+    
+    public double getLootShareRadius() {
+        return lootShareRadius;
+    }
+    
+    public double getLootShareChance() {
+        return lootShareChance;
+    }
+    
+    public boolean isTeleportEnabled() {
+        return teleportEnabled;
+    }
+    
+    public boolean isRespawnAtHome() {
+        return respawnAtHome;
+    }
+    
+    /**
+     * @return Teleport cooldown in seconds
+     */
+    public int getTeleportCooldown() {
+        return teleportCooldown;
+    }
+    
+    public int getMaxTeleportDistance() {
+        return maxTeleportDistance;
+    }
+    
+    public boolean isSafeTeleport() {
+        return safeTeleport;
+    }
+    
+    /**
+     * @return Command cooldown in seconds
+     */
+    public int getCommandCooldown() {
+        return commandCooldown;
+    }
+    
+    public int getMarkerUpdateInterval() {
+        return markerUpdateInterval;
+    }
+    
+    public double getMarkerDistance() {
+        return markerDistance;
+    }
+    
+    public int getMarkerParticleCount() {
+        return markerParticleCount;
+    }
+    
+    public boolean isOptimizeMarkers() {
+        return optimizeMarkers;
+    }
+    
+    public double getMarkerMoveThreshold() {
+        return markerMoveThreshold;
+    }
+    
+    public int getMarkerRefreshInterval() {
+        return markerRefreshInterval;
+    }
+    
+    public boolean isMaxDistanceCheckEnabled() {
+        return maxDistanceCheckEnabled;
+    }
+    
+    public int getMaxDistanceCheckInterval() {
+        return maxDistanceCheckInterval;
+    }
+    
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+    
+    public boolean isKickOnWorldChange() {
+        return kickOnWorldChange;
+    }
+    
+    public boolean isTrackPlaytime() {
+        return trackPlaytime;
+    }
+    
+    public boolean isDisbandWhenAllOffline() {
+        return disbandWhenAllOffline;
+    }
+    
+    public int getDailyRewardXp() {
+        return dailyRewardXp;
+    }
+    
+    public int getDailyRewardStreakBonus() {
+        return dailyRewardStreakBonus;
+    }
+    
+    public boolean isBuffsEnabled() {
+        return buffsEnabled;
+    }
+    
+    public boolean isScoreboardEnabled() {
+        return scoreboardEnabled;
+    }
+    
+    public int getScoreboardUpdateInterval() {
+        return scoreboardUpdateInterval;
+    }
+    
+    public String getScoreboardDisplayType() {
+        return scoreboardDisplayType;
+    }
+    
+    public int getHudUpdateInterval() {
+        return hudUpdateInterval;
+    }
+    
+    public int getHudRefreshInterval() {
+        return hudRefreshInterval;
+    }
+    
+    public boolean isCoordinatesDefault() {
+        return coordinatesDefault;
+    }
+    
+    public boolean isCompassDefault() {
+        return compassDefault;
+    }
+    
+    /**
+     * @return Compass direction text by bucket: 0 = south, then clockwise in 45 degree steps
+     */
+    public String getDirection(int bucket) {
+        return directions[bucket];
+    }
+    
+    public boolean isCachePartyLookups() {
+        return cachePartyLookups;
+    }
+    
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+    
+    public int getMaxCacheSize() {
+        return maxCacheSize;
+    }
+    
+    public boolean isAsyncSave() {
+        return asyncSave;
+    }
+    
+    public boolean isAsyncLoad() {
+        return asyncLoad;
+    }
+    
+    public boolean isBatchAchievementChecks() {
+        return batchAchievementChecks;
+    }
+    
+    public String getStorageType() {
+        return storageType;
+    }
+    
+    public boolean isJournal() {
+        return journal;
+    }
+    
+    public int getJournalFlushInterval() {
+        return journalFlushInterval;
+    }
+    
+    public int getMemoryCleanupInterval() {
+        return memoryCleanupInterval;
+    }
+    
+    public int getAutoSaveInterval() {
+        return autoSaveInterval;
+    }
+    
+    /**
+     * @return Worker threads for the marker and distance math; 0 computes on the main thread
+     */
+    public int getProximityThreads() {
+        if (proximityThreads >= 0) {
+            return proximityThreads;
+        }
+        // Automatic: one per spare core, leaving the main thread its own
+        return Math.min(8, Runtime.getRuntime().availableProcessors() - 1);
+    }
+    
+    /**
+     * @return Time budget of a tick phase in nanoseconds, from performance.phase-budgets (microseconds)
+     */
+    public long getPhaseBudgetNanos(String phase, long defaultNanos) {
+        Long budget = phaseBudgets.get(phase);
+        return budget != null && budget > 0 ? budget : defaultNanos;
+    }
+    
+    public boolean isLogPerformance() {
+        return logPerformance;
+    }
+}
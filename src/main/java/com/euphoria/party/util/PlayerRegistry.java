@@ -0,0 +1,299 @@
+package com.euphoria.party.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Dense per-player state: party membership, pending invite and cooldowns.
+ *
+ * Each player with any state gets an int slot from a {@link UuidSlotMap} and
+ * its values live in flat arrays indexed by that slot. Party and invite
+ * columns hold the party's own id object, cooldowns are plain epoch millis
+ * with 0 meaning "never". A slot is handed back once all of its columns are
+ * empty. Writers take an exclusive lock; readers run optimistically and only
+ * fall back to a read lock when a write raced with them.
+ */
+public class PlayerRegistry {
+    
+    private final StampedLock lock = new StampedLock();
+    private final UuidSlotMap slots = new UuidSlotMap();
+    private UUID[] players = new UUID[64];
+    private UUID[] partyIds = new UUID[64];
+    private UUID[] inviteIds = new UUID[64];
+    private long[] lastCommandUse = new long[64];
+    private long[] lastTeleport = new long[64];
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+    private int nextSlot = 0;
+    
+    public UUID getParty(UUID playerId) {
+        long stamp = lock.tryOptimisticRead();
+        UUID partyId = read(partyIds, slots.get(playerId));
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                partyId = read(partyIds, slots.get(playerId));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return partyId;
+    }
+    
+    public boolean hasParty(UUID playerId) {
+        return getParty(playerId) != null;
+    }
+    
+    public void setParty(UUID playerId, UUID partyId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = acquire(playerId);
+            partyIds[slot] = partyId;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Set the party of many players at once, e.g. after loading
+     */
+    public void setParties(Map<UUID, UUID> playerToParty) {
+        long stamp = lock.writeLock();
+        try {
+            for (Map.Entry<UUID, UUID> entry : playerToParty.entrySet()) {
+                int slot = acquire(entry.getKey());
+                partyIds[slot] = entry.getValue();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public void removeParty(UUID playerId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.get(playerId);
+            if (slot >= 0) {
+                partyIds[slot] = null;
+                releaseIfEmpty(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Drop the party of every player, keeping invites and cooldowns
+     */
+    public void clearParties() {
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (partyIds[slot] != null) {
+                    partyIds[slot] = null;
+                    releaseIfEmpty(slot);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public UUID getInvite(UUID playerId) {
+        long stamp = lock.tryOptimisticRead();
+        UUID partyId = read(inviteIds, slots.get(playerId));
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                partyId = read(inviteIds, slots.get(playerId));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return partyId;
+    }
+    
+    public void setInvite(UUID playerId, UUID partyId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = acquire(playerId);
+            inviteIds[slot] = partyId;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public void removeInvite(UUID playerId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.get(playerId);
+            if (slot >= 0) {
+                inviteIds[slot] = null;
+                releaseIfEmpty(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * @return Epoch millis of the player's last command, or 0 if none is tracked
+     */
+    public long getLastCommandUse(UUID playerId) {
+        long stamp = lock.tryOptimisticRead();
+        long time = read(lastCommandUse, slots.get(playerId));
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                time = read(lastCommandUse, slots.get(playerId));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return time;
+    }
+    
+    public void setLastCommandUse(UUID playerId, long time) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = acquire(playerId);
+            lastCommandUse[slot] = time;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * @return Epoch millis of the player's last teleport, or 0 if none is tracked
+     */
+    public long getLastTeleport(UUID playerId) {
+        long stamp = lock.tryOptimisticRead();
+        long time = read(lastTeleport, slots.get(playerId));
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                time = read(lastTeleport, slots.get(playerId));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return time;
+    }
+    
+    public void setLastTeleport(UUID playerId, long time) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = acquire(playerId);
+            lastTeleport[slot] = time;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Forget the session state of a player that quit: invite and cooldowns.
+     * Party membership is kept.
+     */
+    public void clearSession(UUID playerId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.get(playerId);
+            if (slot >= 0) {
+                inviteIds[slot] = null;
+                lastCommandUse[slot] = 0L;
+                lastTeleport[slot] = 0L;
+                releaseIfEmpty(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Forget cooldowns that started before the given time
+     * @return Number of cleared cooldowns
+     */
+    public int expireCooldowns(long before) {
+        long stamp = lock.writeLock();
+        try {
+            int cleared = 0;
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (players[slot] == null) {
+                    continue;
+                }
+                if (lastCommandUse[slot] != 0L && lastCommandUse[slot] < before) {
+                    lastCommandUse[slot] = 0L;
+                    cleared++;
+                }
+                if (lastTeleport[slot] != 0L && lastTeleport[slot] < before) {
+                    lastTeleport[slot] = 0L;
+                    cleared++;
+                }
+                releaseIfEmpty(slot);
+            }
+            return cleared;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * @return Number of players holding a slot
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    private int acquire(UUID playerId) {
+        int slot = slots.get(playerId);
+        if (slot >= 0) {
+            return slot;
+        }
+        
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = nextSlot++;
+            if (slot == players.length) {
+                int capacity = slot * 2;
+                players = Arrays.copyOf(players, capacity);
+                partyIds = Arrays.copyOf(partyIds, capacity);
+                inviteIds = Arrays.copyOf(inviteIds, capacity);
+                lastCommandUse = Arrays.copyOf(lastCommandUse, capacity);
+                lastTeleport = Arrays.copyOf(lastTeleport, capacity);
+            }
+        }
+        players[slot] = playerId;
+        slots.put(playerId, slot);
+        return slot;
+    }
+    
+    private void releaseIfEmpty(int slot) {
+        if (partyIds[slot] != null || inviteIds[slot] != null
+                || lastCommandUse[slot] != 0L || lastTeleport[slot] != 0L) {
+            return;
+        }
+        
+        slots.remove(players[slot]);
+        players[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    private static UUID read(UUID[] column, int slot) {
+        return slot >= 0 && slot < column.length ? column[slot] : null;
+    }
+    
+    private static long read(long[] column, int slot) {
+        return slot >= 0 && slot < column.length ? column[slot] : 0L;
+    }
+}
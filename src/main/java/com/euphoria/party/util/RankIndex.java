@@ -0,0 +1,245 @@
+package com.euphoria.party.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranking of elements by a score, highest first, kept as an order-statistic treap.
+ *
+ * Every node knows the size of its subtree, so an update is O(log n), the
+ * rank of an element is O(log n) and the top N elements are read in
+ * O(N + log n) without sorting. Equal scores are ordered by the tie-break
+ * comparator so the order is stable. Not thread-safe.
+ */
+public class RankIndex<T> {
+    
+    private final Comparator<? super T> tieBreak;
+    private final Map<T, Node<T>> nodes = new HashMap<>();
+    private Node<T> root;
+    private int seed = 0x2545F491;
+    
+    public RankIndex(Comparator<? super T> tieBreak) {
+        this.tieBreak = tieBreak;
+    }
+    
+    /**
+     * Set the score of an element, adding it if needed.
+     * A NaN score removes the element from the ranking.
+     */
+    public void update(T element, double score) {
+        if (Double.isNaN(score)) {
+            remove(element);
+            return;
+        }
+        
+        Node<T> current = nodes.get(element);
+        if (current != null) {
+            if (Double.compare(current.score, score) == 0) {
+                return;
+            }
+            root = erase(root, current.score, element);
+        }
+        
+        Node<T> node = new Node<>(element, score, nextPriority());
+        nodes.put(element, node);
+        root = insert(root, node);
+    }
+    
+    public boolean remove(T element) {
+        Node<T> current = nodes.remove(element);
+        if (current == null) {
+            return false;
+        }
+        root = erase(root, current.score, element);
+        return true;
+    }
+    
+    /**
+     * @return 1-based rank of the element, or 0 if it is not ranked
+     */
+    public int rank(T element) {
+        Node<T> target = nodes.get(element);
+        if (target == null) {
+            return 0;
+        }
+        
+        int before = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int order = compare(target.score, element, node);
+            if (order < 0) {
+                node = node.left;
+            } else if (order > 0) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return before + size(node.left) + 1;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * @return Up to limit elements, highest score first
+     */
+    public List<T> top(int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, nodes.size()));
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (result.size() < limit && (node != null || !stack.isEmpty())) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(node.element);
+            node = node.right;
+        }
+        return result;
+    }
+    
+    public int size() {
+        return nodes.size();
+    }
+    
+    public void clear() {
+        nodes.clear();
+        root = null;
+    }
+    
+    /**
+     * Order of (score, element) relative to a node: negative if it ranks before the node
+     */
+    private int compare(double score, T element, Node<T> node) {
+        int order = Double.compare(node.score, score);
+        return order != 0 ? order : tieBreak.compare(element, node.element);
+    }
+    
+    private Node<T> insert(Node<T> node, Node<T> inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            // The new node becomes the root of this subtree
+            split(node, inserted.score, inserted.element, inserted);
+            return update(inserted);
+        }
+        if (compare(inserted.score, inserted.element, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        return update(node);
+    }
+    
+    /**
+     * Split a subtree around (score, element) into target.left and target.right
+     */
+    private void split(Node<T> node, double score, T element, Node<T> target) {
+        Node<T> leftTail = null;
+        Node<T> rightHead = null;
+        Deque<Node<T>> touched = new ArrayDeque<>();
+        target.left = null;
+        target.right = null;
+        while (node != null) {
+            touched.push(node);
+            if (compare(score, element, node) > 0) {
+                // Node ranks before the split point
+                if (leftTail == null) {
+                    target.left = node;
+                } else {
+                    leftTail.right = node;
+                }
+                leftTail = node;
+                node = node.right;
+            } else {
+                if (rightHead == null) {
+                    target.right = node;
+                } else {
+                    rightHead.left = node;
+                }
+                rightHead = node;
+                node = node.left;
+            }
+        }
+        if (leftTail != null) {
+            leftTail.right = null;
+        }
+        if (rightHead != null) {
+            rightHead.left = null;
+        }
+        // Fix sizes bottom-up
+        while (!touched.isEmpty()) {
+            update(touched.pop());
+        }
+    }
+    
+    private Node<T> erase(Node<T> node, double score, T element) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(score, element, node);
+        if (order < 0) {
+            node.left = erase(node.left, score, element);
+        } else if (order > 0) {
+            node.right = erase(node.right, score, element);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return update(node);
+    }
+    
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+    
+    private static <T> Node<T> update(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+    
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+    
+    private int nextPriority() {
+        // xorshift32, plenty for treap balancing
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return x;
+    }
+    
+    private static class Node<T> {
+        private final T element;
+        private final double score;
+        private final int priority;
+        private int size = 1;
+        private Node<T> left;
+        private Node<T> right;
+        
+        Node(T element, double score, int priority) {
+            this.element = element;
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.euphoria.party.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial hash used as a broadphase for proximity queries between players.
+ *
+ * Entries are bucketed by level, group (e.g. a party) and a chunk-aligned
+ * X/Z cell. The cell edge is the smallest power-of-two number of chunks that
+ * covers the query radius, so a query only ever has to look at the 3x3 cells
+ * around the querying position. The grid is meant to be rebuilt once per tick:
+ * {@link #reset(double)} keeps all internal arrays and cells for reuse.
+ */
+public class SpatialGrid<T> {
+    
+    private static final int CHUNK_SHIFT = 4;  // 16 blocks per chunk
+    private static final int MAX_SHIFT = 24;
+    
+    // Bit layout of a cell key: level (8) | group (20) | cell x (18) | cell z (18)
+    private static final int LEVEL_BITS = 8;
+    private static final int GROUP_BITS = 20;
+    private static final int CELL_BITS = 18;
+    private static final long LEVEL_MASK = (1L << LEVEL_BITS) - 1;
+    private static final long GROUP_MASK = (1L << GROUP_BITS) - 1;
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+    
+    /**
+     * Callback for query results; use {@link #get(int)} to resolve the entry
+     */
+    public interface Visitor {
+        void accept(int index, double distanceSquared);
+    }
+    
+    // Entry storage (parallel arrays, reused between rebuilds)
+    private Object[] values = new Object[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private double[] zs = new double[64];
+    private int[] groups = new int[64];
+    private int[] levelIds = new int[64];
+    private int size;
+    
+    // Level object -> small integer id, assigned per rebuild
+    private final Map<Object, Integer> levelIndex = new IdentityHashMap<>();
+    private final List<Object> levels = new ArrayList<>();
+    
+    // Open-addressing table of cell key -> cell
+    private long[] cellKeys = new long[128];
+    private Cell[] cells = new Cell[128];
+    private int cellCount;
+    private final List<Cell> cellPool = new ArrayList<>();
+    
+    private int shift = CHUNK_SHIFT;
+    
+    /**
+     * Clear the grid and size its cells for the given query radius
+     */
+    public void reset(double radius) {
+        int s = CHUNK_SHIFT;
+        while (s < MAX_SHIFT && (1 << s) < radius) {
+            s++;
+        }
+        this.shift = s;
+        
+        for (int i = 0; i < cells.length; i++) {
+            Cell cell = cells[i];
+            if (cell != null) {
+                cell.count = 0;
+                cellPool.add(cell);
+                cells[i] = null;
+            }
+        }
+        cellCount = 0;
+        
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        levelIndex.clear();
+        levels.clear();
+    }
+    
+    /**
+     * Insert an entry at the given position
+     * @param level Level (or any identity-compared world key) the entry is in
+     * @param group Non-negative group id; queries only match entries of the same group
+     */
+    public void insert(Object level, int group, double x, double y, double z, T value) {
+        int levelId = levelId(level);
+        if (size == values.length) {
+            grow();
+        }
+        
+        int index = size++;
+        values[index] = value;
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+        groups[index] = group;
+        levelIds[index] = levelId;
+        
+        long key = key(levelId, group, cellOf(x), cellOf(z));
+        Cell cell = getOrCreateCell(key);
+        cell.add(index);
+    }
+    
+    /**
+     * Visit every entry of the same level and group within radius of the given point.
+     * The radius must not exceed the radius the grid was last reset with.
+     */
+    public void query(Object level, int group, double x, double y, double z, double radius, Visitor visitor) {
+        Integer levelId = levelIndex.get(level);
+        if (levelId == null) {
+            return;
+        }
+        
+        double radiusSquared = radius * radius;
+        int cx = cellOf(x);
+        int cz = cellOf(z);
+        
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                Cell cell = getCell(key(levelId, group, cx + dx, cz + dz));
+                if (cell == null) {
+                    continue;
+                }
+                
+                for (int i = 0; i < cell.count; i++) {
+                    int index = cell.entries[i];
+                    // Keys can alias at extreme coordinates, so verify the exact bucket
+                    if (groups[index] != group || levelIds[index] != levelId) {
+                        continue;
+                    }
+                    
+                    double ex = xs[index] - x;
+                    double ey = ys[index] - y;
+                    double ez = zs[index] - z;
+                    double distanceSquared = ex * ex + ey * ey + ez * ez;
+                    if (distanceSquared <= radiusSquared) {
+                        visitor.accept(index, distanceSquared);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Number of entries; entries are indexed 0..size-1 in insertion order
+     */
+    public int size() {
+        return size;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) values[index];
+    }
+    
+    public int getGroup(int index) {
+        return groups[index];
+    }
+    
+    public Object getLevel(int index) {
+        return levels.get(levelIds[index]);
+    }
+    
+    public double getX(int index) {
+        return xs[index];
+    }
+    
+    public double getY(int index) {
+        return ys[index];
+    }
+    
+    public double getZ(int index) {
+        return zs[index];
+    }
+    
+    private int levelId(Object level) {
+        Integer id = levelIndex.get(level);
+        if (id == null) {
+            id = levels.size();
+            levels.add(level);
+            levelIndex.put(level, id);
+        }
+        return id;
+    }
+    
+    private int cellOf(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> shift;
+    }
+    
+    private static long key(int levelId, int group, int cx, int cz) {
+        return ((levelId & LEVEL_MASK) << (GROUP_BITS + 2 * CELL_BITS))
+            | ((group & GROUP_MASK) << (2 * CELL_BITS))
+            | ((cx & CELL_MASK) << CELL_BITS)
+            | (cz & CELL_MASK);
+    }
+    
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+    
+    private Cell getCell(long key) {
+        int mask = cells.length - 1;
+        for (int i = slot(key, mask); cells[i] != null; i = (i + 1) & mask) {
+            if (cellKeys[i] == key) {
+                return cells[i];
+            }
+        }
+        return null;
+    }
+    
+    private Cell getOrCreateCell(long key) {
+        int mask = cells.length - 1;
+        int i = slot(key, mask);
+        for (; cells[i] != null; i = (i + 1) & mask) {
+            if (cellKeys[i] == key) {
+                return cells[i];
+            }
+        }
+        
+        Cell cell = cellPool.isEmpty() ? new Cell() : cellPool.remove(cellPool.size() - 1);
+        cellKeys[i] = key;
+        cells[i] = cell;
+        
+        // Keep load factor below 0.5
+        if (++cellCount * 2 > cells.length) {
+            rehash();
+        }
+        return cell;
+    }
+    
+    private void rehash() {
+        long[] oldKeys = cellKeys;
+        Cell[] oldCells = cells;
+        cellKeys = new long[oldKeys.length * 2];
+        cells = new Cell[oldCells.length * 2];
+        int mask = cells.length - 1;
+        
+        for (int j = 0; j < oldCells.length; j++) {
+            if (oldCells[j] == null) {
+                continue;
+            }
+            int i = slot(oldKeys[j], mask);
+            while (cells[i] != null) {
+                i = (i + 1) & mask;
+            }
+            cellKeys[i] = oldKeys[j];
+            cells[i] = oldCells[j];
+        }
+    }
+    
+    private void grow() {
+        int capacity = values.length * 2;
+        values = Arrays.copyOf(values, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        groups = Arrays.copyOf(groups, capacity);
+        levelIds = Arrays.copyOf(levelIds, capacity);
+    }
+    
+    private static class Cell {
+        private int[] entries = new int[8];
+        private int count;
+        
+        void add(int index) {
+            if (count == entries.length) {
+                entries = Arrays.copyOf(entries, count * 2);
+            }
+            entries[count++] = index;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.euphoria.party.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing map from player UUID to a non-negative int slot.
+ *
+ * Keys are stored as their two longs side by side in one array and probed
+ * linearly, so a lookup neither boxes nor follows node pointers. The table is
+ * kept at most half full and removals shift the following run back instead of
+ * leaving tombstones. Not thread-safe; {@link #get(UUID)} tolerates racing
+ * writers (it never loops forever or reads out of bounds) so callers can use
+ * it under an optimistic read and validate afterwards.
+ */
+public class UuidSlotMap {
+    
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[] keys;  // msb, lsb pairs
+    private int[] values;  // slot + 1, 0 marks an empty bucket
+    private int size = 0;
+    
+    public UuidSlotMap() {
+        this.keys = new long[MIN_CAPACITY * 2];
+        this.values = new int[MIN_CAPACITY];
+    }
+    
+    /**
+     * @return The slot of the player, or -1 if it has none
+     */
+    public int get(UUID playerId) {
+        long msb = playerId.getMostSignificantBits();
+        long lsb = playerId.getLeastSignificantBits();
+        long[] keys = this.keys;
+        int[] values = this.values;
+        if (keys.length != values.length * 2) {
+            return -1;  // Caught mid-resize
+        }
+        
+        int mask = values.length - 1;
+        int index = hash(msb, lsb) & mask;
+        for (int probes = 0; probes < values.length; probes++) {
+            int value = values[index];
+            if (value == 0) {
+                return -1;
+            }
+            if (keys[index * 2] == msb && keys[index * 2 + 1] == lsb) {
+                return value - 1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+    
+    /**
+     * Map the player to a slot, replacing any previous slot
+     */
+    public void put(UUID playerId, int slot) {
+        if ((size + 1) * 2 > values.length) {
+            resize(values.length * 2);
+        }
+        if (insert(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits(), slot + 1)) {
+            size++;
+        }
+    }
+    
+    /**
+     * @return The removed slot, or -1 if the player had none
+     */
+    public int remove(UUID playerId) {
+        long msb = playerId.getMostSignificantBits();
+        long lsb = playerId.getLeastSignificantBits();
+        int mask = values.length - 1;
+        int index = hash(msb, lsb) & mask;
+        while (values[index] != 0) {
+            if (keys[index * 2] == msb && keys[index * 2 + 1] == lsb) {
+                int slot = values[index] - 1;
+                shiftBack(index);
+                size--;
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+    
+    private boolean insert(long msb, long lsb, int value) {
+        int mask = values.length - 1;
+        int index = hash(msb, lsb) & mask;
+        while (values[index] != 0) {
+            if (keys[index * 2] == msb && keys[index * 2 + 1] == lsb) {
+                values[index] = value;
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index * 2] = msb;
+        keys[index * 2 + 1] = lsb;
+        values[index] = value;
+        return true;
+    }
+    
+    /**
+     * Close the gap at the given bucket by moving back entries whose probe
+     * run passes through it
+     */
+    private void shiftBack(int gap) {
+        int mask = values.length - 1;
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            int value = values[index];
+            if (value == 0) {
+                break;
+            }
+            int home = hash(keys[index * 2], keys[index * 2 + 1]) & mask;
+            // Move the entry if its home bucket is not in (gap, index]
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap * 2] = keys[index * 2];
+                keys[gap * 2 + 1] = keys[index * 2 + 1];
+                values[gap] = value;
+                gap = index;
+            }
+        }
+        keys[gap * 2] = 0L;
+        keys[gap * 2 + 1] = 0L;
+        values[gap] = 0;
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        long[] newKeys = new long[capacity * 2];
+        int[] newValues = new int[capacity];
+        
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int index = hash(oldKeys[i * 2], oldKeys[i * 2 + 1]) & mask;
+                while (newValues[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                newKeys[index * 2] = oldKeys[i * 2];
+                newKeys[index * 2 + 1] = oldKeys[i * 2 + 1];
+                newValues[index] = oldValues[i];
+            }
+        }
+        
+        // Publish values last; readers that see mismatched arrays bail out
+        keys = newKeys;
+        values = newValues;
+    }
+    
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,82 @@
+package com.euphoria.party.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost and allocation of one expired-invite cleanup pass over 10k parties;
+ * run with -prof gc for the bytes allocated per pass.
+ *
+ * cleanupPass is PartyManager.cleanupExpiredInvites as it is now (no copies,
+ * parties without invites skipped); copyingPass is the pass before the
+ * non-copying accessors, which copied every party's invites first. Invites
+ * are fresh, so every pass does the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartyCleanupBenchmark {
+    
+    @Param({"10000"})
+    private int parties;
+    
+    @Param({"0.1", "1.0"})
+    private double invitedShare;  // Share of parties with pending invites
+    
+    private static final long EXPIRATION = TimeUnit.MINUTES.toMillis(5);
+    private static final int INVITES = 2;
+    
+    private List<Party> partyList;
+    private Map<UUID, UUID> playerInvites;  // Invited player -> party, as kept by the player registry
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        partyList = new ArrayList<>(parties);
+        playerInvites = new ConcurrentHashMap<>();
+        for (int i = 0; i < parties; i++) {
+            Party party = new Party(new UUID(random.nextLong(), random.nextLong()));
+            for (int m = 0; m < 3; m++) {
+                party.addMember(new UUID(random.nextLong(), random.nextLong()));
+            }
+            if (random.nextDouble() < invitedShare) {
+                for (int n = 0; n < INVITES; n++) {
+                    UUID invited = new UUID(random.nextLong(), random.nextLong());
+                    party.invitePlayer(invited);
+                    playerInvites.put(invited, party.getId());
+                }
+            }
+            partyList.add(party);
+        }
+    }
+    
+    @Benchmark
+    public int cleanupPass() {
+        for (Party party : partyList) {
+            party.cleanExpiredInvites(EXPIRATION, playerInvites::remove);
+            party.cleanExpiredJoinRequests(EXPIRATION);
+        }
+        return playerInvites.size();
+    }
+    
+    @Benchmark
+    public int copyingPass() {
+        for (Party party : partyList) {
+            Set<UUID> invitedPlayers = new HashSet<>(party.getInvites().keySet());
+            party.cleanExpiredInvites(EXPIRATION);
+            for (UUID playerId : invitedPlayers) {
+                if (!party.hasInvite(playerId)) {
+                    playerInvites.remove(playerId);
+                }
+            }
+            party.cleanExpiredJoinRequests(EXPIRATION);
+        }
+        return playerInvites.size();
+    }
+}
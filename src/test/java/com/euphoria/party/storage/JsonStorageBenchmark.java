@@ -0,0 +1,117 @@
+package com.euphoria.party.storage;
+
+import com.euphoria.party.model.Party;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and save throughput of parties.json at 10k and 100k parties; run
+ * with -prof gc for the allocation per operation.
+ *
+ * load and save go through JsonPartyStorage (streamed records, converted in
+ * parallel on load). treeLoad and treeSave are the way the file was handled
+ * before streaming: the whole file bound to a List of PartyData, and a full
+ * PartyData list pretty-printed on save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class JsonStorageBenchmark {
+    
+    @Param({"10000", "100000"})
+    private int parties;
+    
+    private static final int MEMBERS = 4;
+    
+    private File folder;
+    private File dataFile;
+    private Map<UUID, Party> data;
+    private JsonPartyStorage storage;
+    private final Gson treeGson = new GsonBuilder().setPrettyPrinting().create();
+    
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        data = new HashMap<>();
+        for (int i = 0; i < parties; i++) {
+            Party party = new Party(new UUID(random.nextLong(), random.nextLong()), new UUID(random.nextLong(), random.nextLong()));
+            for (int m = 1; m < MEMBERS; m++) {
+                party.addMember(new UUID(random.nextLong(), random.nextLong()));
+            }
+            party.setName("Party " + i);
+            for (int k = random.nextInt(50); k > 0; k--) {
+                party.incrementKills();
+            }
+            party.addPlayTime(random.nextInt(10_000_000));
+            party.unlockAchievement("first_blood");
+            data.put(party.getId(), party);
+        }
+        
+        folder = Files.createTempDirectory("party-bench").toFile();
+        dataFile = new File(folder, "parties.json");
+        storage = new JsonPartyStorage(folder);
+        if (!storage.saveChanges(data, data.values(), Collections.emptyList())) {
+            throw new IllegalStateException("Could not write the benchmark data set");
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+    
+    @Benchmark
+    public Map<UUID, Party> load() {
+        return storage.loadParties();
+    }
+    
+    @Benchmark
+    public boolean save() {
+        return storage.saveChanges(data, data.values(), Collections.emptyList());
+    }
+    
+    @Benchmark
+    public void treeLoad(Blackhole blackhole) throws IOException {
+        try (Reader reader = new BufferedReader(new FileReader(dataFile, StandardCharsets.UTF_8))) {
+            Type type = new TypeToken<List<PartyData>>(){}.getType();
+            List<PartyData> partyDataList = treeGson.fromJson(reader, type);
+            Map<UUID, Party> loaded = new HashMap<>();
+            for (PartyData partyData : partyDataList) {
+                Party party = partyData.toParty();
+                loaded.put(party.getId(), party);
+            }
+            blackhole.consume(loaded);
+        }
+    }
+    
+    @Benchmark
+    public void treeSave() throws IOException {
+        List<PartyData> partyDataList = new ArrayList<>(data.size());
+        for (Party party : data.values()) {
+            partyDataList.add(PartyData.fromParty(party));
+        }
+        File tempFile = new File(folder, "parties-tree.json");
+        try (Writer writer = new BufferedWriter(new FileWriter(tempFile, StandardCharsets.UTF_8))) {
+            treeGson.toJson(partyDataList, writer);
+        }
+    }
+}
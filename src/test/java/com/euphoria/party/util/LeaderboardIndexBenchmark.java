@@ -0,0 +1,84 @@
+package com.euphoria.party.util;
+
+import com.euphoria.party.model.Party;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Kills leaderboard over 50k parties: re-scoring a changed party, looking up
+ * a party's rank and reading the top 10 from the RankIndex the leaderboard
+ * manager keeps, against the full sort every query did before
+ * (sortedTop, sortedRank).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardIndexBenchmark {
+    
+    @Param({"50000"})
+    private int parties;
+    
+    private static final int TOP = 10;
+    
+    private List<Party> partyList;
+    private RankIndex<Party> index;
+    private Random random;
+    
+    @Setup
+    public void setup() {
+        random = new Random(42);
+        partyList = new ArrayList<>(parties);
+        index = new RankIndex<>(Comparator.comparing(Party::getId));
+        for (int i = 0; i < parties; i++) {
+            Party party = new Party(new UUID(random.nextLong(), random.nextLong()));
+            for (int k = random.nextInt(1000); k > 0; k--) {
+                party.incrementKills();
+            }
+            partyList.add(party);
+            index.update(party, party.getTotalKills());
+        }
+    }
+    
+    private Party randomParty() {
+        return partyList.get(random.nextInt(parties));
+    }
+    
+    @Benchmark
+    public void update() {
+        Party party = randomParty();
+        party.incrementKills();
+        index.update(party, party.getTotalKills());
+    }
+    
+    @Benchmark
+    public int rank() {
+        return index.rank(randomParty());
+    }
+    
+    @Benchmark
+    public List<Party> top() {
+        return index.top(TOP);
+    }
+    
+    @Benchmark
+    public List<Party> sortedTop() {
+        return partyList.stream()
+            .sorted(Comparator.comparingInt(Party::getTotalKills).reversed())
+            .limit(TOP)
+            .collect(Collectors.toList());
+    }
+    
+    @Benchmark
+    public int sortedRank() {
+        List<Party> sorted = partyList.stream()
+            .sorted(Comparator.comparingInt(Party::getTotalKills).reversed())
+            .collect(Collectors.toList());
+        return sorted.indexOf(randomParty()) + 1;
+    }
+}
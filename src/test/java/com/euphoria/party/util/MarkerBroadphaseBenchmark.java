@@ -0,0 +1,130 @@
+package com.euphoria.party.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the marker targets of one marker tick: every pair of
+ * online members of the same party in the same level within marker-distance.
+ *
+ * allPairs is the scan the marker task used before the grid (each member
+ * against every other member of its party); spatialGrid rebuilds the grid and
+ * runs one query per member, as the marker pass does every tick. Members are
+ * spread over a few levels and a square area so that only part of each party
+ * is in range.
+ *
+ * 500 players in 100 parties is the ordinary case; 2 parties of 250 shows
+ * where the grid starts to win, which is what the pair-scan threshold of the
+ * marker pass (ProximityPipeline.GRID_MIN_MEMBERS) is based on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkerBroadphaseBenchmark {
+    
+    @Param({"500"})
+    private int players;
+    
+    @Param({"100", "2"})
+    private int parties;
+    
+    @Param({"2000"})
+    private int spread;  // Edge of the square the members are spread over, in blocks
+    
+    private static final double MARKER_DISTANCE = 200.0;
+    private static final int LEVELS = 3;
+    
+    private Object[] levels;
+    private int[] partyStart;  // Members of party p are [partyStart[p], partyStart[p + 1])
+    private Object[] memberLevels;
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private SpatialGrid<Void> grid;
+    private final PairCounter counter = new PairCounter();
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        levels = new Object[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = new Object();
+        }
+        
+        partyStart = new int[parties + 1];
+        for (int party = 0; party <= parties; party++) {
+            partyStart[party] = (int) ((long) players * party / parties);
+        }
+        
+        memberLevels = new Object[players];
+        xs = new double[players];
+        ys = new double[players];
+        zs = new double[players];
+        for (int i = 0; i < players; i++) {
+            memberLevels[i] = levels[random.nextInt(LEVELS)];
+            xs[i] = random.nextDouble() * spread;
+            ys[i] = 60 + random.nextDouble() * 40;
+            zs[i] = random.nextDouble() * spread;
+        }
+        grid = new SpatialGrid<>();
+    }
+    
+    @Benchmark
+    public void allPairs(Blackhole blackhole) {
+        double maxDistanceSquared = MARKER_DISTANCE * MARKER_DISTANCE;
+        int pairs = 0;
+        for (int party = 0; party < parties; party++) {
+            for (int viewer = partyStart[party]; viewer < partyStart[party + 1]; viewer++) {
+                for (int target = partyStart[party]; target < partyStart[party + 1]; target++) {
+                    if (viewer == target || !memberLevels[viewer].equals(memberLevels[target])) {
+                        continue;
+                    }
+                    double dx = xs[viewer] - xs[target];
+                    double dy = ys[viewer] - ys[target];
+                    double dz = zs[viewer] - zs[target];
+                    if (dx * dx + dy * dy + dz * dz <= maxDistanceSquared) {
+                        pairs++;
+                    }
+                }
+            }
+        }
+        blackhole.consume(pairs);
+    }
+    
+    @Benchmark
+    public void spatialGrid(Blackhole blackhole) {
+        grid.reset(MARKER_DISTANCE);
+        for (int party = 0; party < parties; party++) {
+            for (int member = partyStart[party]; member < partyStart[party + 1]; member++) {
+                grid.insert(memberLevels[member], party, xs[member], ys[member], zs[member], null);
+            }
+        }
+        
+        PairCounter counter = this.counter;
+        counter.pairs = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            counter.viewer = i;
+            grid.query(grid.getLevel(i), grid.getGroup(i), grid.getX(i), grid.getY(i), grid.getZ(i), MARKER_DISTANCE,
+                counter);
+        }
+        blackhole.consume(counter.pairs);
+    }
+    
+    private static final class PairCounter implements SpatialGrid.Visitor {
+        private int viewer;
+        private int pairs;
+        
+        @Override
+        public void accept(int index, double distanceSquared) {
+            if (index != viewer) {
+                pairs++;
+            }
+        }
+    }
+}